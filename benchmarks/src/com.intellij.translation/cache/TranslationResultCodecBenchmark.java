@@ -0,0 +1,91 @@
+/*
+ * Copyright 2016 Yuyou Chow
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intellij.translation.cache;
+
+import com.google.gson.Gson;
+import com.intellij.translation.translator.BenchmarkPayloads;
+import com.intellij.translation.translator.TranslationResult;
+import com.intellij.translation.translator.YoudaoTranslator;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.StringEntity;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link TranslationResultCodec} against Gson for the same {@link TranslationResult}. The setup prints the encoded
+ * sizes of each form, which matter as much as the speed for a store of many entries.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TranslationResultCodecBenchmark {
+	@Param({"short", "word", "long"})
+	public String payload;
+
+	private final Gson myGson = new Gson();
+	private TranslationResult myResult;
+	private byte[] myEncoded;
+	private byte[] myCompressed;
+	private String myJson;
+
+	@Setup
+	public void setUp() throws IOException {
+		String json = BenchmarkPayloads.loadYoudaoJson(payload);
+		myResult = new YoudaoTranslator().generateResult(payload, new StringEntity(json, ContentType.APPLICATION_JSON));
+		myEncoded = TranslationResultCodec.encode(myResult, false);
+		myCompressed = TranslationResultCodec.encode(myResult, true);
+		myJson = myGson.toJson(myResult);
+		System.out.printf("%n%s: json %d bytes, binary %d bytes, compressed %d bytes%n",
+			payload, myJson.getBytes(StandardCharsets.UTF_8).length, myEncoded.length, myCompressed.length);
+	}
+
+	@Benchmark
+	public byte[] encode() {
+		return TranslationResultCodec.encode(myResult, false);
+	}
+
+	@Benchmark
+	public byte[] encodeCompressed() {
+		return TranslationResultCodec.encode(myResult, true);
+	}
+
+	@Benchmark
+	public TranslationResult decode() throws IOException {
+		return TranslationResultCodec.decode(ByteBuffer.wrap(myEncoded));
+	}
+
+	@Benchmark
+	public TranslationResult decodeCompressed() throws IOException {
+		return TranslationResultCodec.decode(ByteBuffer.wrap(myCompressed));
+	}
+
+	@Benchmark
+	public byte[] gsonEncode() {
+		return myGson.toJson(myResult).getBytes(StandardCharsets.UTF_8);
+	}
+
+	@Benchmark
+	public TranslationResult gsonDecode() {
+		return myGson.fromJson(myJson, TranslationResult.class);
+	}
+}
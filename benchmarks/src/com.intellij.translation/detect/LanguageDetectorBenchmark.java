@@ -0,0 +1,46 @@
+/*
+ * Copyright 2016 Yuyou Chow
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intellij.translation.detect;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link LanguageDetector#detect} should stay in the sub-microsecond range for typical selections,
+ * run with <code>-prof gc</code> to check it does not allocate.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LanguageDetectorBenchmark {
+	@Param({
+		"translation",
+		"Returns the preferred size of the viewport for a view component",
+		"返回视口的首选大小",
+		"550e8400-e29b-41d4-a716-446655440000",
+		"https://github.com/zyuyou/intellij-translation"
+	})
+	public String query;
+
+	@Benchmark
+	public LanguageDetector.Language detect() {
+		return LanguageDetector.detect(query);
+	}
+}
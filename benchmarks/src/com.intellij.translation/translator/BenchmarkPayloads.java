@@ -0,0 +1,48 @@
+/*
+ * Copyright 2016 Yuyou Chow
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intellij.translation.translator;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Recorded fanyi.youdao.com responses under <code>benchmarks/resources/youdao</code>:
+ * <code>short</code> is a word without web results, <code>word</code> a typical word and
+ * <code>long</code> a word with a long web result list.
+ */
+public class BenchmarkPayloads {
+	private BenchmarkPayloads() {
+	}
+
+	public static String loadYoudaoJson(String name) {
+		try(InputStream stream = BenchmarkPayloads.class.getResourceAsStream("/youdao/" + name + ".json")){
+			if(stream == null){
+				throw new IllegalArgumentException("Unknown payload: " + name);
+			}
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			byte[] buffer = new byte[4096];
+			int read;
+			while((read = stream.read(buffer)) != -1){
+				out.write(buffer, 0, read);
+			}
+			return new String(out.toByteArray(), StandardCharsets.UTF_8);
+		}catch (IOException e){
+			throw new IllegalStateException(e);
+		}
+	}
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2016 Yuyou Chow
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intellij.translation.translator;
+
+import org.jetbrains.annotations.NotNull;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The whole {@link TranslatorUtil#fetchResult} pipeline against a local {@link YoudaoStandInServer}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class TranslatorUtilBenchmark {
+	@Param({"0", "20"})
+	public int latencyMillis;
+
+	@Param({"translation", "hello"})
+	public String query;
+
+	private YoudaoStandInServer myServer;
+	private TranslatorEx myTranslator;
+
+	@Setup
+	public void setUp() throws IOException {
+		myServer = new YoudaoStandInServer(42)
+			.setLatency(YoudaoStandInServer.LatencyDistribution.logNormal(latencyMillis, 0.5))
+			.start();
+		System.setProperty(YoudaoTranslator.HOST_PROPERTY, myServer.getHost());
+
+		UrlTemplate template = YoudaoTranslator.createTemplate(myServer.getHost(), "IntellijTranslate", "1918103305");
+		myTranslator = new YoudaoTranslator(){
+			@NotNull
+			@Override
+			public URI createUrl(String query) throws URISyntaxException {
+				return template.expandUri(query);
+			}
+		};
+	}
+
+	@TearDown
+	public void tearDown() throws IOException {
+		System.clearProperty(YoudaoTranslator.HOST_PROPERTY);
+		myServer.close();
+	}
+
+	@Benchmark
+	public TranslationResult fetchResult() {
+		return TranslatorUtil.fetchResult(query, myTranslator);
+	}
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2016 Yuyou Chow
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intellij.translation.translator;
+
+import org.apache.http.client.utils.URIBuilder;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.UnsupportedEncodingException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URLEncoder;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Request url building of {@link YoudaoTranslator} against the {@link URIBuilder} it replaced, and
+ * {@link PercentEncoder} against {@link URLEncoder}. Glossary and batch runs build one url per entry.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UrlTemplateBenchmark {
+	@Param({"word", "sentence", "chinese"})
+	public String query;
+
+	private String myQuery;
+	private UrlTemplate myTemplate;
+
+	@Setup
+	public void setUp() {
+		switch(query){
+			case "word":
+				myQuery = "translation";
+				break;
+			case "sentence":
+				myQuery = "The quick brown fox jumps over the lazy dog & runs away";
+				break;
+			default:
+				myQuery = "\u7ffb\u8bd1\u63d2\u4ef6";
+		}
+		myTemplate = YoudaoTranslator.createTemplate("fanyi.youdao.com", "IntellijTranslate", "1918103305");
+	}
+
+	@Benchmark
+	public URI uriBuilder() throws URISyntaxException {
+		return new URIBuilder()
+			.setScheme("http")
+			.setHost("fanyi.youdao.com")
+			.setPath("/openapi.do")
+			.addParameter("keyfrom", "IntellijTranslate")
+			.addParameter("key", "1918103305")
+			.addParameter("type", "data")
+			.addParameter("version", "1.1")
+			.addParameter("doctype", "json")
+			.addParameter("q", myQuery)
+			.build();
+	}
+
+	@Benchmark
+	public URI template() throws URISyntaxException {
+		return myTemplate.expandUri(myQuery);
+	}
+
+	@Benchmark
+	public String urlEncoder() throws UnsupportedEncodingException {
+		return URLEncoder.encode(myQuery, "UTF-8");
+	}
+
+	@Benchmark
+	public String percentEncoder() {
+		return PercentEncoder.encode(myQuery);
+	}
+}
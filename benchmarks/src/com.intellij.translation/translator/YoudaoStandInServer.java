@@ -0,0 +1,321 @@
+/*
+ * Copyright 2016 Yuyou Chow
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intellij.translation.translator;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonPrimitive;
+import org.apache.http.NameValuePair;
+import org.apache.http.client.utils.URLEncodedUtils;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Local imitation of the fanyi.youdao.com <code>/openapi.do</code> endpoint for offline latency and load testing.
+ *
+ * Queries matching a recorded fixture under <code>benchmarks/resources/youdao</code> get that response, other queries
+ * get a minimal successful one. Latency and faults are drawn from a seeded {@link Random}, so runs are reproducible:
+ * <pre>
+ * YoudaoStandInServer server = new YoudaoStandInServer(42)
+ *   .setLatency(LatencyDistribution.logNormal(30, 0.5))
+ *   .setErrorCode(50, 0.01)
+ *   .setDropRate(0.001)
+ *   .start();
+ * System.setProperty(YoudaoTranslator.HOST_PROPERTY, server.getHost());
+ * </pre>
+ */
+public class YoudaoStandInServer implements Closeable {
+	private static final String[] FIXTURES = {"short", "word", "long"};
+
+	private final Random myRandom;
+	private final Map<String, String> myFixtures = new HashMap<>();
+	private final ExecutorService myExecutor = Executors.newCachedThreadPool(r -> {
+		Thread thread = new Thread(r, "Youdao stand-in server");
+		thread.setDaemon(true);
+		return thread;
+	});
+	private final AtomicLong myRequestCount = new AtomicLong();
+
+	private volatile LatencyDistribution myLatency = LatencyDistribution.fixed(0);
+	private volatile int myErrorCode;
+	private volatile double myErrorCodeRate;
+	private volatile int myHttpStatus = 500;
+	private volatile double myHttpErrorRate;
+	private volatile int mySlowBodyBytesPerSecond = 1024;
+	private volatile double mySlowBodyRate;
+	private volatile double myDropRate;
+
+	private ServerSocket myServerSocket;
+
+	public YoudaoStandInServer(long seed) {
+		myRandom = new Random(seed);
+		for(String name : FIXTURES){
+			String json = BenchmarkPayloads.loadYoudaoJson(name);
+			JsonObject object = new JsonParser().parse(json).getAsJsonObject();
+			myFixtures.put(object.get("query").getAsString(), json);
+		}
+	}
+
+	public YoudaoStandInServer setLatency(LatencyDistribution latency) {
+		myLatency = latency;
+		return this;
+	}
+
+	/**
+	 * Answers with a Youdao error code (20, 30, 40, 50 or 60) in an otherwise successful response.
+	 */
+	public YoudaoStandInServer setErrorCode(int errorCode, double rate) {
+		myErrorCode = errorCode;
+		myErrorCodeRate = rate;
+		return this;
+	}
+
+	public YoudaoStandInServer setHttpError(int status, double rate) {
+		myHttpStatus = status;
+		myHttpErrorRate = rate;
+		return this;
+	}
+
+	public YoudaoStandInServer setSlowBody(int bytesPerSecond, double rate) {
+		mySlowBodyBytesPerSecond = bytesPerSecond;
+		mySlowBodyRate = rate;
+		return this;
+	}
+
+	/**
+	 * Closes the connection after reading the request, without answering.
+	 */
+	public YoudaoStandInServer setDropRate(double rate) {
+		myDropRate = rate;
+		return this;
+	}
+
+	public YoudaoStandInServer start() throws IOException {
+		myServerSocket = new ServerSocket(0, 128, InetAddress.getLoopbackAddress());
+		myExecutor.execute(() -> {
+			while(!myServerSocket.isClosed()){
+				try{
+					Socket socket = myServerSocket.accept();
+					myExecutor.execute(() -> serve(socket));
+				}catch (IOException ignore){
+				}
+			}
+		});
+		return this;
+	}
+
+	/**
+	 * @return the value for {@link YoudaoTranslator#HOST_PROPERTY}
+	 */
+	public String getHost() {
+		return "localhost:" + myServerSocket.getLocalPort();
+	}
+
+	public long getRequestCount() {
+		return myRequestCount.get();
+	}
+
+	@Override
+	public void close() throws IOException {
+		myServerSocket.close();
+		myExecutor.shutdownNow();
+	}
+
+	private void serve(Socket socket) {
+		try(Socket ignored = socket){
+			InputStream in = new BufferedInputStream(socket.getInputStream());
+			OutputStream out = new BufferedOutputStream(socket.getOutputStream());
+			while(true){
+				String requestLine = readLine(in);
+				if(requestLine == null || requestLine.isEmpty()) return;
+				boolean keepAlive = true;
+				boolean gzip = false;
+				String header;
+				while((header = readLine(in)) != null && !header.isEmpty()){
+					if(header.equalsIgnoreCase("Connection: close")) keepAlive = false;
+					if(header.regionMatches(true, 0, "Accept-Encoding:", 0, 16) && header.contains("gzip")) gzip = true;
+				}
+				myRequestCount.incrementAndGet();
+
+				Fault fault = nextFault();
+				Thread.sleep(nextLatency());
+				if(fault == Fault.DROP) return;
+
+				String[] parts = requestLine.split(" ");
+				URI uri = URI.create(parts.length > 1 ? parts[1] : "/");
+				if(!"/openapi.do".equals(uri.getPath())){
+					writeResponse(out, 404, "Not Found", "", keepAlive);
+				}else if(fault == Fault.HTTP_ERROR){
+					writeResponse(out, myHttpStatus, "Stand-in Error", "", keepAlive);
+				}else{
+					String query = getQuery(uri);
+					String body = fault == Fault.ERROR_CODE ? createErrorJson(query, myErrorCode) : getJson(query);
+					if(fault == Fault.SLOW_BODY){
+						writeSlowResponse(out, body, keepAlive);
+					}else{
+						writeResponse(out, 200, "OK", body, keepAlive, gzip);
+					}
+				}
+				if(!keepAlive) return;
+			}
+		}catch (SocketException ignore){
+			// client went away
+		}catch (IOException | InterruptedException ignore){
+		}
+	}
+
+	private Fault nextFault() {
+		synchronized (myRandom){
+			double dice = myRandom.nextDouble();
+			if((dice -= myDropRate) < 0) return Fault.DROP;
+			if((dice -= myHttpErrorRate) < 0) return Fault.HTTP_ERROR;
+			if((dice -= myErrorCodeRate) < 0) return Fault.ERROR_CODE;
+			if((dice -= mySlowBodyRate) < 0) return Fault.SLOW_BODY;
+			return Fault.NONE;
+		}
+	}
+
+	private long nextLatency() {
+		synchronized (myRandom){
+			return Math.max(0, myLatency.nextMillis(myRandom));
+		}
+	}
+
+	private String getJson(String query) {
+		String json = myFixtures.get(query);
+		if(json != null) return json;
+		JsonArray translation = new JsonArray();
+		translation.add(new JsonPrimitive(query));
+		JsonObject object = new JsonObject();
+		object.add("translation", translation);
+		object.addProperty("query", query);
+		object.addProperty("errorCode", 0);
+		return object.toString();
+	}
+
+	private static String createErrorJson(String query, int errorCode) {
+		JsonObject object = new JsonObject();
+		object.addProperty("query", query);
+		object.addProperty("errorCode", errorCode);
+		return object.toString();
+	}
+
+	private static String getQuery(URI uri) {
+		List<NameValuePair> pairs = URLEncodedUtils.parse(uri, "UTF-8");
+		for(NameValuePair pair : pairs){
+			if("q".equals(pair.getName())) return pair.getValue();
+		}
+		return "";
+	}
+
+	private static void writeResponse(OutputStream out, int status, String reason, String body, boolean keepAlive) throws IOException {
+		writeResponse(out, status, reason, body, keepAlive, false);
+	}
+
+	/**
+	 * @param gzip whether to compress the body, as fanyi.youdao.com does for clients that accept it
+	 */
+	private static void writeResponse(OutputStream out, int status, String reason, String body, boolean keepAlive, boolean gzip) throws IOException {
+		byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+		if(gzip){
+			ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+			try(GZIPOutputStream gzipOut = new GZIPOutputStream(compressed)){
+				gzipOut.write(bytes);
+			}
+			bytes = compressed.toByteArray();
+		}
+		writeHeaders(out, status, reason, bytes.length, keepAlive, gzip ? "gzip" : null);
+		out.write(bytes);
+		out.flush();
+	}
+
+	private void writeSlowResponse(OutputStream out, String body, boolean keepAlive) throws IOException, InterruptedException {
+		byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+		writeHeaders(out, 200, "OK", bytes.length, keepAlive, null);
+		out.flush();
+		int chunk = Math.max(1, mySlowBodyBytesPerSecond / 10);
+		for(int offset = 0; offset < bytes.length; offset += chunk){
+			out.write(bytes, offset, Math.min(chunk, bytes.length - offset));
+			out.flush();
+			Thread.sleep(100);
+		}
+	}
+
+	private static void writeHeaders(OutputStream out, int status, String reason, int length, boolean keepAlive, String encoding) throws IOException {
+		String headers = "HTTP/1.1 " + status + " " + reason + "\r\n" +
+			"Content-Type: application/json; charset=utf-8\r\n" +
+			"Content-Length: " + length + "\r\n" +
+			(encoding != null ? "Content-Encoding: " + encoding + "\r\n" : "") +
+			(keepAlive ? "" : "Connection: close\r\n") +
+			"\r\n";
+		out.write(headers.getBytes(StandardCharsets.US_ASCII));
+	}
+
+	private static String readLine(InputStream in) throws IOException {
+		StringBuilder builder = new StringBuilder();
+		int c;
+		while((c = in.read()) != -1){
+			if(c == '\n'){
+				int length = builder.length();
+				return length > 0 && builder.charAt(length - 1) == '\r' ? builder.substring(0, length - 1) : builder.toString();
+			}
+			builder.append((char)c);
+		}
+		return builder.length() == 0 ? null : builder.toString();
+	}
+
+	private enum Fault {
+		NONE, DROP, HTTP_ERROR, ERROR_CODE, SLOW_BODY
+	}
+
+	public interface LatencyDistribution {
+		long nextMillis(Random random);
+
+		static LatencyDistribution fixed(long millis) {
+			return random -> millis;
+		}
+
+		static LatencyDistribution uniform(long minMillis, long maxMillis) {
+			return random -> minMillis + (long)(random.nextDouble() * (maxMillis - minMillis));
+		}
+
+		static LatencyDistribution exponential(double meanMillis) {
+			return random -> (long)(-meanMillis * Math.log(1 - random.nextDouble()));
+		}
+
+		/**
+		 * Long-tailed latency, typical for a remote service: median <code>medianMillis</code>, spread <code>sigma</code>.
+		 */
+		static LatencyDistribution logNormal(double medianMillis, double sigma) {
+			return random -> (long)(medianMillis * Math.exp(sigma * random.nextGaussian()));
+		}
+	}
+}
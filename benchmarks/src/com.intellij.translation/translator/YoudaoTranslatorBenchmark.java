@@ -0,0 +1,74 @@
+/*
+ * Copyright 2016 Yuyou Chow
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intellij.translation.translator;
+
+import com.google.gson.Gson;
+import com.intellij.translation.TranslationRenderer;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.StringEntity;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing hot paths of {@link YoudaoTranslator} and rendering of its results. Run with <code>gradle jmh</code>,
+ * which adds the gc profiler for allocation rates.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class YoudaoTranslatorBenchmark {
+	@Param({"short", "word", "long"})
+	public String payload;
+
+	private final YoudaoTranslator myTranslator = new YoudaoTranslator();
+	private String myJson;
+	private YoudaoTranslation myTranslation;
+	private TranslationResult myResult;
+
+	@Setup
+	public void setUp() {
+		myJson = BenchmarkPayloads.loadYoudaoJson(payload);
+		myTranslation = new Gson().fromJson(myJson, YoudaoTranslation.class);
+		myResult = myTranslation.toResult();
+	}
+
+	@Benchmark
+	public TranslationResult generateResult() throws IOException {
+		return myTranslator.generateResult(myTranslation.getQuery(), new StringEntity(myJson, ContentType.APPLICATION_JSON));
+	}
+
+	@Benchmark
+	public TranslationResult toResult() {
+		return myTranslation.toResult();
+	}
+
+	@Benchmark
+	public String render() {
+		return TranslationRenderer.render(myResult);
+	}
+
+	@Benchmark
+	public URI createUrl() throws URISyntaxException {
+		return YoudaoTranslator.createUrl(myTranslation.getQuery(), "IntellijTranslate", "1918103305");
+	}
+}
@@ -33,6 +33,9 @@ import com.intellij.openapi.ui.popup.JBPopup;
 import com.intellij.openapi.util.Disposer;
 import com.intellij.openapi.util.registry.Registry;
 import com.intellij.openapi.wm.ex.WindowManagerEx;
+import com.intellij.translation.concurrent.TranslationThreads;
+import com.intellij.translation.diagnostic.TranslationMetrics;
+import com.intellij.translation.translator.TranslationResult;
 import com.intellij.translation.translator.Translator;
 import com.intellij.ui.IdeBorderFactory;
 import com.intellij.ui.JBColor;
@@ -55,7 +58,12 @@ import javax.swing.text.html.HTML;
 import javax.swing.text.html.HTMLDocument;
 import java.awt.*;
 import java.awt.event.*;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -78,22 +86,33 @@ public class TranslationComponent extends JPanel implements Disposable, DataProv
 	private volatile boolean myIsEmpty;
 	private boolean myIsShown;
 	private final JLabel myTranslatorLabel;
-	private final MutableAttributeSet myFontSizeStyle = new SimpleAttributeSet();
 	private JSlider myFontSizeSlider;
 	private final JComponent mySettingsPanel;
 	private final MyShowSettingsButton myShowSettingsButton;
 	private boolean myIgnoreFontSizeSliderChange;
 	private String myExternalUrl;
 	private Translator myTranslator;
+	/** set while the shown translation was cached for a related form of {@link #myQuery} */
+	private String myApproximateQuery;
 
 	private final JScrollPane myScrollPane;
 	private final JEditorPane myEditorPane;
+	private final EditorKit myEditorKit;
 	private String myText;  // myEditorPane.getText() surprisingly crashes.., let's cache the text
+	private TranslationResult myResult; // rendered again on font changes, myText is only kept for plain messages
+	private Document myDocument; // kept with the context when navigating away, null while it is still being parsed
 	private final JPanel myControlPanel;
 	private boolean myControlPanelVisible;
 	private final ExternalTranslationAction myExternalTranslationAction;
 
+	/** earlier translations, latest first, restored from memory without fetching them again */
+	private final Deque<Context> myBackStack = new ArrayDeque<>();
+	private final Deque<Context> myForwardStack = new ArrayDeque<>();
+
 	private JBPopup myHint;
+	private long myShowStartTime;
+	/** whether the component was taken ready-made from the {@link TranslationComponentPool} */
+	private boolean myPooled;
 
 	private final Map<KeyStroke, ActionListener> myKeyboardActions = new HashMap<KeyStroke, ActionListener>();
 
@@ -107,6 +126,14 @@ public class TranslationComponent extends JPanel implements Disposable, DataProv
 		myIsShown = false;
 
 		myEditorPane = new JEditorPane(UIUtil.HTML_MIME, ""){
+			// laying out a long document is expensive and Swing asks for the size several times per layout pass,
+			// documents are replaced rather than edited, so the document and the font size identify the layout,
+			// the length catches the odd in-place edit such as setText
+			private Document myCachedDocument;
+			private int myCachedDocumentLength;
+			private int myCachedFontSize;
+			private Dimension myCachedSize;
+
 			@Override
 			public Dimension getPreferredScrollableViewportSize() {
 				int em = myEditorPane.getFont().getSize();
@@ -118,6 +145,12 @@ public class TranslationComponent extends JPanel implements Disposable, DataProv
 					setSize(prefWidth, prefHeightMax);
 				}
 
+				Document document = getDocument();
+				if(myCachedSize != null && myCachedDocument == document && myCachedDocumentLength == document.getLength() &&
+					myCachedFontSize == em){
+					return new Dimension(myCachedSize);
+				}
+
 				Insets ins = myEditorPane.getInsets();
 				View rootView = myEditorPane.getUI().getRootView(myEditorPane);
 				rootView.setSize(prefWidth, prefHeightMax); // Necessary! Without this line, the size won't increase when the content does
@@ -126,7 +159,17 @@ public class TranslationComponent extends JPanel implements Disposable, DataProv
 					myScrollPane.getHorizontalScrollBar().getMaximumSize().height;
 
 				prefHeight = Math.max(prefHeightMin, Math.min(prefHeightMax, prefHeight));
-				return new Dimension(prefWidth, prefHeight);
+				myCachedDocument = document;
+				myCachedDocumentLength = document.getLength();
+				myCachedFontSize = em;
+				myCachedSize = new Dimension(prefWidth, prefHeight);
+				return new Dimension(myCachedSize);
+			}
+
+			@Override
+			public void updateUI() {
+				super.updateUI();
+				myCachedSize = null; // insets and views change with the look and feel
 			}
 
 			{
@@ -155,7 +198,8 @@ public class TranslationComponent extends JPanel implements Disposable, DataProv
 		myText = "";
 		myEditorPane.setEditable(false);
 		myEditorPane.setBackground(HintUtil.INFORMATION_COLOR);
-		myEditorPane.setEditorKit(UIUtil.getHTMLEditorKit(false));
+		myEditorKit = UIUtil.getHTMLEditorKit(false);
+		myEditorPane.setEditorKit(myEditorKit);
 
 		myScrollPane = new JBScrollPane(myEditorPane){
 			@Override
@@ -261,8 +305,15 @@ public class TranslationComponent extends JPanel implements Disposable, DataProv
 		myScrollPane.setViewportBorder(JBScrollPane.createIndentBorder());
 
 		final DefaultActionGroup actions = new DefaultActionGroup();
+		final BackAction back = new BackAction();
+		final ForwardAction forward = new ForwardAction();
+		actions.add(back);
+		actions.add(forward);
 		actions.add(myExternalTranslationAction = new ExternalTranslationAction());
 
+		back.registerCustomShortcutSet(ActionManager.getInstance().getAction(IdeActions.ACTION_GOTO_BACK).getShortcutSet(), this);
+		forward.registerCustomShortcutSet(ActionManager.getInstance().getAction(IdeActions.ACTION_GOTO_FORWARD).getShortcutSet(), this);
+
 		myExternalTranslationAction.registerCustomShortcutSet(CustomShortcutSet.fromString("UP"), this);
 
 		if(additionalActions != null){
@@ -293,9 +344,52 @@ public class TranslationComponent extends JPanel implements Disposable, DataProv
 		updateControlState();
 	}
 
+	@Override
+	public void paint(Graphics g) {
+		super.paint(g);
+		if(myShowStartTime != 0 && !myIsEmpty){
+			long nanos = System.nanoTime() - myShowStartTime;
+			TranslationMetrics.recordPopupFirstPaint(nanos, myPooled);
+			LOGGER.debug("Translation popup first paint in " + nanos / 1000000 + "ms, " + (myPooled ? "pooled" : "new") + " component");
+			myShowStartTime = 0;
+		}
+	}
+
+	/**
+	 * Marks when the popup hosting this component was requested, to report its time to first paint.
+	 */
+	void setShowStartTime(long nanoTime, boolean pooled) {
+		myShowStartTime = nanoTime;
+		myPooled = pooled;
+	}
+
+	/**
+	 * Brings a pooled component back to its initial state, see {@link TranslationComponentPool}.
+	 */
+	void reset() {
+		myHint = null;
+		myIsShown = false;
+		myIsEmpty = true;
+		myQuery = null;
+		myTranslator = null;
+		myApproximateQuery = null;
+		myText = "";
+		myResult = null;
+		myDocument = null;
+		myShowStartTime = 0;
+		myBackStack.clear();
+		myForwardStack.clear();
+		// a new document rather than setText, which would empty the current one in place
+		myEditorPane.setDocument(myEditorKit.createDefaultDocument());
+		mySettingsPanel.setVisible(false);
+		updateControlState();
+	}
+
 	@Override
 	public void dispose() {
 		myKeyboardActions.clear();
+		myBackStack.clear();
+		myForwardStack.clear();
 		myManager = null;
 		myHint = null;
 	}
@@ -362,24 +456,57 @@ public class TranslationComponent extends JPanel implements Disposable, DataProv
 		}
 	}
 
+	/**
+	 * Rebuilds the current document with the new font size off the EDT and swaps it in afterwards.
+	 */
 	private void applyFontSize(){
-		Document document = myEditorPane.getDocument();
-		if(!(document instanceof StyledDocument)){
-			return;
-		}
+		final String text = myText;
+		final TranslationResult result = myResult;
+		TranslationThreads.execute(() -> {
+			final Document document = result != null ? createDocument(result) : createDocument(text);
+			//noinspection SSBasedInspection
+			SwingUtilities.invokeLater(() -> {
+				if(text != myText || result != myResult) return; // content was replaced meanwhile
+				Rectangle viewRect = myEditorPane.getVisibleRect();
+				myDocument = document;
+				myEditorPane.setDocument(document);
+				myEditorPane.scrollRectToVisible(viewRect);
+			});
+		});
+	}
 
-		final StyledDocument styledDocument = (StyledDocument)document;
+	/**
+	 * Renders the result and parses it like {@link #createDocument(String)}, may be called from any thread.
+	 */
+	@NotNull
+	Document createDocument(@NotNull TranslationResult result){
+		return createDocument(TranslationRenderer.render(result));
+	}
 
-		EditorColorsManager colorsManager = EditorColorsManager.getInstance();
-		EditorColorsScheme scheme = colorsManager.getGlobalScheme();
-		StyleConstants.setFontSize(myFontSizeStyle, JBUI.scale(scheme.getQuickDocFontSize().getSize()));
-		if(Registry.is("documentation.component.editor.font")){
-			StyleConstants.setFontFamily(myFontSizeStyle, scheme.getEditorFontName());
+	/**
+	 * Parses the html into a new document with the quick doc font size applied.
+	 * The document is not attached to the editor pane yet, so this may be called from any thread.
+	 */
+	@NotNull
+	Document createDocument(@NotNull String text){
+		Document document = myEditorKit.createDefaultDocument();
+		document.putProperty("IgnoreCharsetDirective", Boolean.TRUE);
+		try{
+			myEditorKit.read(new StringReader(text), document, 0);
+		}catch (IOException | BadLocationException e){
+			LOGGER.warn(e);
 		}
 
-		ApplicationManager.getApplication().executeOnPooledThread(
-			() -> styledDocument.setCharacterAttributes(0, styledDocument.getLength(), myFontSizeStyle, false)
-		);
+		if(document instanceof StyledDocument){
+			EditorColorsScheme scheme = EditorColorsManager.getInstance().getGlobalScheme();
+			MutableAttributeSet fontSizeStyle = new SimpleAttributeSet();
+			StyleConstants.setFontSize(fontSizeStyle, JBUI.scale(scheme.getQuickDocFontSize().getSize()));
+			if(Registry.is("documentation.component.editor.font")){
+				StyleConstants.setFontFamily(fontSizeStyle, scheme.getEditorFontName());
+			}
+			((StyledDocument)document).setCharacterAttributes(0, document.getLength(), fontSizeStyle, false);
+		}
+		return document;
 	}
 
 	private void setFontSizeSliderSize(FontSize fontSize) {
@@ -398,6 +525,38 @@ public class TranslationComponent extends JPanel implements Disposable, DataProv
 		}
 	}
 
+	private class BackAction extends AnAction implements HintManagerImpl.ActionToIgnore {
+		private BackAction() {
+			super("Back", null, AllIcons.Actions.Back);
+		}
+
+		@Override
+		public void actionPerformed(AnActionEvent e) {
+			goBack();
+		}
+
+		@Override
+		public void update(AnActionEvent e) {
+			e.getPresentation().setEnabled(!myBackStack.isEmpty());
+		}
+	}
+
+	private class ForwardAction extends AnAction implements HintManagerImpl.ActionToIgnore {
+		private ForwardAction() {
+			super("Forward", null, AllIcons.Actions.Forward);
+		}
+
+		@Override
+		public void actionPerformed(AnActionEvent e) {
+			goForward();
+		}
+
+		@Override
+		public void update(AnActionEvent e) {
+			e.getPresentation().setEnabled(!myForwardStack.isEmpty());
+		}
+	}
+
 	private class ExternalTranslationAction extends AnAction implements HintManagerImpl.ActionToIgnore {
 		private ExternalTranslationAction() {
 			super("View External Dictionary", null, AllIcons.Actions.Browser_externalJavaDoc);
@@ -416,7 +575,7 @@ public class TranslationComponent extends JPanel implements Disposable, DataProv
 		public void update(AnActionEvent e) {
 			final Presentation presentation = e.getPresentation();
 			presentation.setEnabled(false);
-			if(myQuery != null){
+			if(myQuery != null && myTranslator != null){
 				presentation.setEnabled(true);
 			}
 		}
@@ -479,12 +638,14 @@ public class TranslationComponent extends JPanel implements Disposable, DataProv
 			myTranslatorLabel.setText("");
 			myTranslatorLabel.setIcon(null);
 		}else{
-			myTranslatorLabel.setText(myTranslator.getTitle());
+			myTranslatorLabel.setText(myApproximateQuery == null
+				? myTranslator.getTitle()
+				: myTranslator.getTitle() + " (" + TranslationBundle.message("translation.approximate", myApproximateQuery) + ")");
 			myTranslatorLabel.setIcon(myTranslator.getIcon());
 		}
 
 		myToolBar.updateActionsImmediately(); // update faster
-		setControlPanelVisible(true);   //(!myBackStack.isEmpty() || !myForwardStack.isEmpty());
+		setControlPanelVisible(true);
 	}
 
 	private void setControlPanelVisible(boolean visible) {
@@ -614,24 +775,134 @@ public class TranslationComponent extends JPanel implements Disposable, DataProv
 	}
 
 	public void setData(String query, String text, final Translator translator){
+		setData(query, text, createDocument(text), translator);
+	}
+
+	/**
+	 * @param document built from <code>text</code> by {@link #createDocument(String)}, usually off the EDT
+	 */
+	public void setData(String query, String text, @NotNull Document document, final Translator translator){
+		doSetData(query, text, null, document, translator, null);
+	}
+
+	/**
+	 * @param document built from <code>result</code> by {@link #createDocument(TranslationResult)}, usually off the EDT
+	 * @param approximateQuery the related form the translation was fetched for, when it was served for an inflection of it
+	 */
+	public void setData(String query, @NotNull TranslationResult result, @NotNull Document document, final Translator translator, @Nullable String approximateQuery){
+		doSetData(query, null, result, document, translator, approximateQuery);
+	}
+
+	/**
+	 * Makes earlier translations reachable with the back action, e.g. the ones remembered by {@link TranslationHistory}.
+	 *
+	 * @param items latest first
+	 */
+	public void setHistory(@NotNull List<TranslationHistory.Item> items){
+		myBackStack.clear();
+		myForwardStack.clear();
+		for(TranslationHistory.Item item : items){
+			if(myBackStack.size() == TranslationConstants.HISTORY_SIZE) break;
+			TranslationResult result = item.getResult();
+			myBackStack.addLast(new Context(result.getQuery(), null, result, item.getTranslator(), null, null, null, new Rectangle(0, 0)));
+		}
+		updateControlState();
+	}
+
+	private void goBack(){
+		if(myBackStack.isEmpty()) return;
+		Context context = myBackStack.removeFirst();
+		if(myResult != null){
+			push(myForwardStack, saveContext());
+		}
+		restoreContext(context);
+	}
+
+	private void goForward(){
+		if(myForwardStack.isEmpty()) return;
+		Context context = myForwardStack.removeFirst();
+		if(myResult != null){
+			push(myBackStack, saveContext());
+		}
+		restoreContext(context);
+	}
+
+	private static void push(@NotNull Deque<Context> stack, @NotNull Context context){
+		stack.addFirst(context);
+		if(stack.size() > TranslationConstants.HISTORY_SIZE){
+			stack.removeLast();
+		}
+	}
+
+	@NotNull
+	private Context saveContext(){
+		return new Context(myQuery, myText, myResult, myTranslator, myApproximateQuery, myDocument, getQuickDocFontSize(),
+			myEditorPane.getVisibleRect());
+	}
+
+	/**
+	 * Shows the kept document right away. Seeded history and documents built for another font size are parsed off
+	 * the EDT like a fresh translation, the previous one stays until the document is ready.
+	 */
+	private void restoreContext(@NotNull Context context){
+		myTranslator = context.myTranslator;
+		myApproximateQuery = context.myApproximateQuery;
+		myResult = context.myResult;
+		myIsEmpty = false;
+		updateControlState();
+		if(context.myDocument != null && context.myFontSize == getQuickDocFontSize()){
+			setDataInternal(context.myQuery, context.myText, context.myDocument, context.myViewRect);
+			return;
+		}
+
+		setQuery(context.myQuery);
+		myText = context.myText;
+		myDocument = null;
+		TranslationThreads.execute(() -> {
+			final Document document = context.myResult != null ? createDocument(context.myResult) : createDocument(context.myText);
+			//noinspection SSBasedInspection
+			SwingUtilities.invokeLater(() -> {
+				if(context.myText != myText || context.myResult != myResult) return; // navigated elsewhere meanwhile
+				setDataInternal(context.myQuery, context.myText, document, context.myViewRect);
+			});
+		});
+	}
+
+	@NotNull
+	private static FontSize getQuickDocFontSize(){
+		return EditorColorsManager.getInstance().getGlobalScheme().getQuickDocFontSize();
+	}
+
+	private void doSetData(String query, String text, TranslationResult result, @NotNull Document document, final Translator translator, @Nullable String approximateQuery){
+		// a refresh of the shown query replaces it in place, anything else goes on top of it
+		if(result != null && !myBackStack.isEmpty() && TranslationManager.isSameQuery(myBackStack.peekFirst().myQuery, query)){
+			myBackStack.removeFirst();
+		}
+		// only translations enter the history, messages such as errors or progress just replace the view
+		if(myResult != null && !TranslationManager.isSameQuery(myQuery, query)){
+			push(myBackStack, saveContext());
+			myForwardStack.clear();
+		}
 		myTranslator = translator;
+		myApproximateQuery = approximateQuery;
+		myResult = result;
 
 		setQuery(query);
 
 		myIsEmpty = false;
 		updateControlState();
-		setDataInternal(query, text, new Rectangle(0, 0));
+		setDataInternal(query, text, document, new Rectangle(0, 0));
 	}
 
 	private void setQuery(String query){
 		myQuery = query;
 	}
 
-	private void setDataInternal(String query, String text, final Rectangle viewRect){
+	private void setDataInternal(String query, String text, Document document, final Rectangle viewRect){
 		setQuery(query);
 
-		myEditorPane.setText(text);
-		applyFontSize();
+		myDocument = document;
+		myEditorPane.setDocument(document);
 
 		if(!myIsShown && myHint != null && !ApplicationManager.getApplication().isUnitTestMode()){
 			myManager.showHint(myHint);
@@ -650,4 +921,28 @@ public class TranslationComponent extends JPanel implements Disposable, DataProv
 	public String getText() {
 		return myText;
 	}
+
+	private static class Context {
+		private final String myQuery;
+		private final String myText;
+		private final TranslationResult myResult;
+		private final Translator myTranslator;
+		private final String myApproximateQuery;
+		/** parsed for {@link #myFontSize}, <code>null</code> if it is yet to be parsed */
+		private final Document myDocument;
+		private final FontSize myFontSize;
+		private final Rectangle myViewRect;
+
+		private Context(String query, String text, TranslationResult result, Translator translator, String approximateQuery,
+		                Document document, FontSize fontSize, Rectangle viewRect) {
+			myQuery = query;
+			myText = text;
+			myResult = result;
+			myTranslator = translator;
+			myApproximateQuery = approximateQuery;
+			myDocument = document;
+			myFontSize = fontSize;
+			myViewRect = viewRect;
+		}
+	}
 }
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2016 Yuyou Chow
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intellij.translation;
+
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.application.ModalityState;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.util.Disposer;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Pre-built popup {@link TranslationComponent}s, so that opening a popup only swaps content instead of
+ * creating the editor pane, toolbar and settings panel from scratch. Accessed from the EDT only.
+ */
+class TranslationComponentPool implements Disposable {
+	private static final Logger LOG = Logger.getInstance("#" + TranslationComponentPool.class.getName());
+
+	private static final int POOL_SIZE = 2;
+
+	private final TranslationManager myManager;
+	private final Deque<TranslationComponent> myComponents = new ArrayDeque<>();
+	private boolean myDisposed;
+
+	TranslationComponentPool(@NotNull TranslationManager manager) {
+		myManager = manager;
+	}
+
+	/**
+	 * Fills the pool later on the EDT, off the critical path of the popup that is being opened.
+	 */
+	void scheduleWarmUp() {
+		ApplicationManager.getApplication().invokeLater(() -> {
+			while(!myDisposed && myComponents.size() < POOL_SIZE){
+				myComponents.push(new TranslationComponent(myManager));
+			}
+		}, ModalityState.NON_MODAL, myManager.getProject().getDisposed());
+	}
+
+	boolean isEmpty() {
+		return myComponents.isEmpty();
+	}
+
+	@NotNull
+	TranslationComponent acquire() {
+		TranslationComponent component = myComponents.poll();
+		if(component == null){
+			LOG.debug("Translation component pool is empty, creating a new component");
+			component = new TranslationComponent(myManager);
+		}
+		scheduleWarmUp();
+		return component;
+	}
+
+	void release(@NotNull TranslationComponent component) {
+		if(myDisposed || myComponents.size() >= POOL_SIZE){
+			Disposer.dispose(component);
+			return;
+		}
+		component.reset();
+		myComponents.push(component);
+	}
+
+	@Override
+	public void dispose() {
+		myDisposed = true;
+		for(TranslationComponent component : myComponents){
+			Disposer.dispose(component);
+		}
+		myComponents.clear();
+	}
+}
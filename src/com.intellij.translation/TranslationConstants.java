@@ -24,5 +24,32 @@ public class TranslationConstants {
 	public static final String TRANSLATION_INPLACE_SETTINGS = "TranslationInplaceSettings";
 
 	public static final int REQUEST_TIMEOUT = 5000;
+	public static final int MAX_RESPONSE_SIZE = 1024 * 1024;
+
+	public static final int HTTP_MAX_CONNECTIONS = 16;
+	public static final int HTTP_MAX_CONNECTIONS_PER_ROUTE = 8;
+	public static final int HTTP_VALIDATE_AFTER_INACTIVITY = 2000;
+	public static final int HTTP_IDLE_TIMEOUT = 30000;
+
+	public static final int TRANSLATOR_THREADS = 2;
+	public static final int TRANSLATOR_QUEUE_CAPACITY = 8;
+	/** requests a translator may run at once on virtual threads, which need no pool or queue */
+	public static final int TRANSLATOR_VIRTUAL_CONCURRENCY = HTTP_MAX_CONNECTIONS_PER_ROUTE * 4;
+	public static final int TRANSLATOR_TIMEOUT = REQUEST_TIMEOUT * 2;
+
+	public static final int RETRY_MAX_ATTEMPTS = 3;
+	public static final int RETRY_BASE_DELAY = 100;
+	public static final int RETRY_MAX_DELAY = 1000;
+	public static final double RETRY_BUDGET_RATIO = 0.2;
+	public static final int RETRY_BUDGET_CAPACITY = 10;
+
+	public static final int FETCH_DELAY = 10;
+	public static final int AUTO_UPDATE_MAX_DELAY = 400;
+	public static final int AUTO_UPDATE_CHANGING_WINDOW = 150;
+
+	/** translations a component can go back to */
+	public static final int HISTORY_SIZE = 50;
+	/** translations remembered for the tool window across restarts */
+	public static final int PERSISTED_HISTORY_SIZE = 20;
 
 }
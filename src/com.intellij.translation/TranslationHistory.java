@@ -0,0 +1,147 @@
+/*
+ * Copyright 2016 Yuyou Chow
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intellij.translation;
+
+import com.intellij.openapi.components.PersistentStateComponent;
+import com.intellij.openapi.components.ServiceManager;
+import com.intellij.openapi.components.State;
+import com.intellij.openapi.components.Storage;
+import com.intellij.openapi.components.StoragePathMacros;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.project.Project;
+import com.intellij.translation.cache.TranslationResultCodec;
+import com.intellij.translation.translator.TranslationResult;
+import com.intellij.translation.translator.Translator;
+import com.intellij.translation.translator.TranslatorEP;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Latest translations of a project, kept in the workspace file so the Translation tool window can go back to them
+ * after a restart without fetching them again. Results are stored in the compact {@link TranslationResultCodec} form.
+ */
+@State(name = "TranslationHistory", storages = @Storage(StoragePathMacros.WORKSPACE_FILE))
+public class TranslationHistory implements PersistentStateComponent<TranslationHistory.State> {
+	private static final Logger LOG = Logger.getInstance("#" + TranslationHistory.class.getName());
+
+	private State myState = new State();
+
+	public static TranslationHistory getInstance(@NotNull Project project) {
+		return ServiceManager.getService(project, TranslationHistory.class);
+	}
+
+	@Nullable
+	@Override
+	public State getState() {
+		return myState;
+	}
+
+	@Override
+	public void loadState(State state) {
+		myState = state;
+	}
+
+	/**
+	 * Moves the query to the front, only successful translations are remembered.
+	 */
+	public synchronized void add(@NotNull TranslationResult result, @Nullable Translator translator) {
+		if(!result.isSuccessful()) return;
+
+		for(Iterator<Entry> iterator = myState.entries.iterator(); iterator.hasNext(); ){
+			if(TranslationManager.isSameQuery(iterator.next().query, result.getQuery())){
+				iterator.remove();
+			}
+		}
+		Entry entry = new Entry();
+		entry.query = result.getQuery();
+		entry.translator = translator != null ? translator.getClass().getName() : null;
+		entry.result = Base64.getEncoder().encodeToString(TranslationResultCodec.encode(result));
+		myState.entries.add(0, entry);
+		while(myState.entries.size() > TranslationConstants.PERSISTED_HISTORY_SIZE){
+			myState.entries.remove(myState.entries.size() - 1);
+		}
+	}
+
+	/**
+	 * @return the remembered translations, latest first; entries that can not be read anymore are left out
+	 */
+	@NotNull
+	public synchronized List<Item> getItems() {
+		List<Item> items = new ArrayList<>(myState.entries.size());
+		for(Entry entry : myState.entries){
+			if(entry.result == null) continue;
+			try{
+				TranslationResult result = TranslationResultCodec.decode(ByteBuffer.wrap(Base64.getDecoder().decode(entry.result)));
+				items.add(new Item(result, findTranslator(entry.translator)));
+			}catch (IOException | IllegalArgumentException e){
+				LOG.debug("Dropping unreadable history entry for " + entry.query, e);
+			}
+		}
+		return items;
+	}
+
+	public synchronized void clear() {
+		myState.entries.clear();
+	}
+
+	@Nullable
+	private static Translator findTranslator(@Nullable String className) {
+		if(className == null) return null;
+		for(TranslatorEP ep : TranslationManager.TRANSLATOR_EP.getExtensions()){
+			if(className.equals(ep.getImplementationClass())){
+				return ep.getInstance();
+			}
+		}
+		return null;
+	}
+
+	public static class Item {
+		private final TranslationResult myResult;
+		private final Translator myTranslator;
+
+		Item(@NotNull TranslationResult result, @Nullable Translator translator) {
+			myResult = result;
+			myTranslator = translator;
+		}
+
+		@NotNull
+		public TranslationResult getResult() {
+			return myResult;
+		}
+
+		@Nullable
+		public Translator getTranslator() {
+			return myTranslator;
+		}
+	}
+
+	public static class Entry {
+		public String query;
+		public String translator;
+		public String result;
+	}
+
+	public static class State {
+		public List<Entry> entries = new ArrayList<>();
+	}
+}
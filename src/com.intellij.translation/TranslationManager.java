@@ -44,9 +44,26 @@ import com.intellij.psi.PsiDocumentManager;
 import com.intellij.psi.PsiElement;
 import com.intellij.psi.PsiFile;
 import com.intellij.psi.presentation.java.SymbolPresentationUtil;
+import com.intellij.translation.cache.SharedTranslationCache;
+import com.intellij.translation.cache.TranslationCache;
+import com.intellij.translation.concurrent.AdaptiveDebouncer;
+import com.intellij.translation.concurrent.TranslationThreads;
+import com.intellij.translation.concurrent.TranslatorBulkheads;
+import com.intellij.translation.detect.LanguageDetector;
+import com.intellij.translation.diagnostic.TraceStage;
+import com.intellij.translation.diagnostic.TranslationMetrics;
+import com.intellij.translation.diagnostic.TranslationTrace;
+import com.intellij.translation.diagnostic.TranslationStatisticsPanel;
+import com.intellij.translation.diagnostic.TranslationTracer;
+import com.intellij.translation.routing.TranslatorRouter;
+import com.intellij.translation.settings.TranslationSettingsSnapshot;
+import com.intellij.translation.translator.TranslationResult;
 import com.intellij.translation.translator.Translator;
+import com.intellij.translation.translator.TranslatorEP;
 import com.intellij.ui.ScrollingUtil;
 import com.intellij.ui.content.Content;
+import com.intellij.ui.content.ContentFactory;
+import com.intellij.ui.content.ContentManager;
 import com.intellij.ui.popup.AbstractPopup;
 import com.intellij.ui.popup.PopupPositionManager;
 import com.intellij.util.Alarm;
@@ -58,10 +75,14 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import javax.swing.*;
+import javax.swing.text.Document;
 import java.awt.*;
 import java.awt.event.ActionListener;
 import java.lang.ref.WeakReference;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 /**
  * Created by zyuyou on 16/6/20.
@@ -70,7 +91,7 @@ import java.util.List;
  * @author JetBrains s.r.o.
  */
 public class TranslationManager extends DockablePopupManager<TranslationComponent> {
-	public static final ExtensionPointName<Translator> TRANSLATOR_EP = ExtensionPointName.create("com.intellij.translation.translator");
+	public static final ExtensionPointName<TranslatorEP> TRANSLATOR_EP = ExtensionPointName.create("com.intellij.translation.translator");
 
 	@NonNls public static final String TRANSLATION_LOCATION_AND_SIZE = "com.intellij.translation.popup";
 	public static final DataKey<String> SELECTED_QUICK_TRANSLATION_TEXT = DataKey.create("QUICK_TRANSLATION.SELECTED_TEXT");
@@ -81,6 +102,8 @@ public class TranslationManager extends DockablePopupManager<TranslationComponen
 
 	private Editor myEditor;
 	private final Alarm myUpdateTranslationAlarm;
+	private final AdaptiveDebouncer myAutoUpdateDebouncer = new AdaptiveDebouncer(TranslationConstants.FETCH_DELAY,
+		TranslationConstants.AUTO_UPDATE_MAX_DELAY, TranslationConstants.AUTO_UPDATE_CHANGING_WINDOW);
 	private WeakReference<JBPopup> myTranslationHintRef;
 	private Component myPreviouslyFocused;
 
@@ -89,6 +112,7 @@ public class TranslationManager extends DockablePopupManager<TranslationComponen
 	private boolean myCloseOnSneeze;
 	private ActionCallback myLastAction;
 	private TranslationComponent myTestTranslationComponent;
+	private final TranslationComponentPool myComponentPool;
 
 	private AnAction myRestorePopupAction;
 
@@ -132,12 +156,22 @@ public class TranslationManager extends DockablePopupManager<TranslationComponen
 
 		myActionManager.addAnActionListener(actionListener, project);
 		myUpdateTranslationAlarm = new Alarm(Alarm.ThreadToUse.POOLED_THREAD, myProject);
+
+		myComponentPool = new TranslationComponentPool(this);
+		Disposer.register(project, myComponentPool);
 	}
 
 	public static TranslationManager getInstance(Project project){
 		return ServiceManager.getService(project, TranslationManager.class);
 	}
 
+	/**
+	 * Prepares popup components ahead of the first Quick Translate, see {@link TranslationStartupActivity}.
+	 */
+	void warmUp() {
+		myComponentPool.scheduleWarmUp();
+	}
+
 	@Override
 	protected String getShowInToolWindowProperty() {
 		return SHOW_TRANSLATION_IN_TOOL_WINDOW;
@@ -191,24 +225,61 @@ public class TranslationManager extends DockablePopupManager<TranslationComponen
 				myRestorePopupAction.registerCustomShortcutSet(quickTranslateShortCut, myToolWindow.getComponent());
 				myRestorePopupAction = null;
 			}
+			addStatisticsContent();
+		}
+	}
+
+	private void addStatisticsContent() {
+		ContentManager contentManager = myToolWindow.getContentManager();
+		for(Content content : contentManager.getContents()){
+			if(content.getComponent() instanceof TranslationStatisticsPanel) return;
+		}
+
+		TranslationStatisticsPanel panel = new TranslationStatisticsPanel(myProject);
+		Content content = ContentFactory.SERVICE.getInstance().createContent(panel, TranslationBundle.message("translation.statistics.tab"), false);
+		content.setCloseable(false);
+		content.setDisposer(panel);
+
+		Content selected = contentManager.getSelectedContent();
+		contentManager.addContent(content);
+		if(selected != null){
+			contentManager.setSelectedContent(selected);
+		}
+	}
+
+	@Nullable
+	private Content getTranslationContent() {
+		for(Content content : myToolWindow.getContentManager().getContents()){
+			if(content.getComponent() instanceof TranslationComponent) return content;
 		}
+		return null;
 	}
 
 
 
 	@Override
 	protected TranslationComponent createComponent() {
-		return new TranslationComponent(this, createActions());
+		TranslationComponent component = new TranslationComponent(this, createActions());
+		component.setHistory(TranslationHistory.getInstance(myProject).getItems());
+		return component;
 	}
 
 	@Override
 	protected void doUpdateComponent(PsiElement element, PsiElement originalElement, TranslationComponent component) {
-		fetchTranslation(getDefaultCollector(myEditor.getSelectionModel().getSelectedText()), component);
+		if(myEditor == null) return;
+		String queryText = myEditor.getSelectionModel().getSelectedText();
+		if(queryText == null || isSameQuery(queryText, component.getQuery())) return;
+		doFetchTranslation(component, getDefaultCollector(queryText), true, false, myAutoUpdateDebouncer.nextDelay());
 	}
 
 	@Override
 	protected void doUpdateComponent(Editor editor, PsiFile psiFile) {
-		showTranslation(editor, false, null);
+		myEditor = editor;
+
+		String queryText = editor.getSelectionModel().getSelectedText();
+		if(queryText != null){
+			doShowTranslation(queryText, false, null, true);
+		}
 	}
 
 	@Override
@@ -273,11 +344,11 @@ public class TranslationManager extends DockablePopupManager<TranslationComponen
 
 		SelectionModel selectionModel = editor.getSelectionModel();
 		if(selectionModel.getSelectedText() != null){
-			doShowTranslation(selectionModel.getSelectedText(), requestFocus, closeCallback);
+			doShowTranslation(selectionModel.getSelectedText(), requestFocus, closeCallback, false);
 		}
 	}
 
-	private void doShowTranslation(@NotNull String queryText, boolean requestFocus, @Nullable final Runnable closeCallback) {
+	private void doShowTranslation(@NotNull String queryText, boolean requestFocus, @Nullable final Runnable closeCallback, boolean autoUpdate) {
 		final Project project = myProject;
 		if(!project.isOpen()) return;
 
@@ -288,10 +359,13 @@ public class TranslationManager extends DockablePopupManager<TranslationComponen
 		if(myToolWindow == null && PropertiesComponent.getInstance().isTrueValue(SHOW_TRANSLATION_IN_TOOL_WINDOW)){
 			createToolWindow(null, null);
 		}else if(myToolWindow != null){
-			Content content = myToolWindow.getContentManager().getSelectedContent();
+			Content content = getTranslationContent();
 			if(content != null){
+				if(!autoUpdate){
+					myToolWindow.getContentManager().setSelectedContent(content);
+				}
 				TranslationComponent component = (TranslationComponent) content.getComponent();
-				boolean samQuery = queryText.equals(component.getQuery());
+				boolean samQuery = isSameQuery(queryText, component.getQuery());
 				if(samQuery){
 					JComponent preferredFocusableComponent = content.getPreferredFocusableComponent();
 					// focus toolwindow on the second actionPerformed
@@ -301,7 +375,8 @@ public class TranslationManager extends DockablePopupManager<TranslationComponen
 					}
 				}else{
 					content.setDisplayName(getTitle(null, true));
-					fetchTranslation(getDefaultCollector(queryText), component, true);
+					int delay = autoUpdate ? myAutoUpdateDebouncer.nextDelay() : TranslationConstants.FETCH_DELAY;
+					doFetchTranslation(component, getDefaultCollector(queryText), true, true, delay);
 				}
 			}
 			if(!myToolWindow.isVisible()){
@@ -310,15 +385,24 @@ public class TranslationManager extends DockablePopupManager<TranslationComponen
 			}
 		}else if(_oldHint != null && _oldHint.isVisible() && _oldHint instanceof AbstractPopup){
 			TranslationComponent oldComponent = (TranslationComponent)((AbstractPopup) _oldHint).getComponent();
-			fetchTranslation(getDefaultCollector(queryText), oldComponent);
+			if(autoUpdate){
+				if(!isSameQuery(queryText, oldComponent.getQuery())){
+					doFetchTranslation(oldComponent, getDefaultCollector(queryText), true, false, myAutoUpdateDebouncer.nextDelay());
+				}
+			}else{
+				fetchTranslation(getDefaultCollector(queryText), oldComponent);
+			}
 		}else{
 			showInPopup(queryText, requestFocus, closeCallback);
 		}
 	}
 
 	private void showInPopup(@NotNull String queryText, boolean requestFocus, @Nullable final Runnable closeCallback){
+		final long showStart = System.nanoTime();
+		final boolean pooled = myTestTranslationComponent == null && !myComponentPool.isEmpty();
 		final TranslationComponent component = myTestTranslationComponent == null?
-			new TranslationComponent(this) : myTestTranslationComponent;
+			myComponentPool.acquire() : myTestTranslationComponent;
+		component.setShowStartTime(showStart, pooled);
 
 		// todo NavigateCallback
 
@@ -358,7 +442,11 @@ public class TranslationManager extends DockablePopupManager<TranslationComponen
 				if(closeCallback != null){
 					closeCallback.run();
 				}
-				Disposer.dispose(component);
+				if(component == myTestTranslationComponent){
+					Disposer.dispose(component);
+				}else{
+					myComponentPool.release(component);
+				}
 				myEditor = null;
 				myPreviouslyFocused = null;
 				return Boolean.TRUE;
@@ -383,16 +471,17 @@ public class TranslationManager extends DockablePopupManager<TranslationComponen
 	}
 
 	public void fetchTranslation(final TranslationCollector provider, final TranslationComponent component){
-		doFetchTranslation(component, provider, true, false);
+		doFetchTranslation(component, provider, true, false, TranslationConstants.FETCH_DELAY);
 	}
 
 	public void fetchTranslation(final TranslationCollector provider, final TranslationComponent component, final boolean clearHistory){
-		doFetchTranslation(component, provider, true, clearHistory);
+		doFetchTranslation(component, provider, true, clearHistory, TranslationConstants.FETCH_DELAY);
 	}
 
-	private ActionCallback doFetchTranslation(final TranslationComponent component, final TranslationCollector provider, final boolean cancelRequests, final boolean clearHistory){
+	private ActionCallback doFetchTranslation(final TranslationComponent component, final TranslationCollector provider, final boolean cancelRequests, final boolean clearHistory, final int delay){
 		final ActionCallback callback = new ActionCallback();
 		myLastAction = callback;
+		final TranslationTrace trace = TranslationTracer.detach();
 
 		boolean wasEmpty = component.isEmpty();
 		component.startWait();
@@ -407,58 +496,136 @@ public class TranslationManager extends DockablePopupManager<TranslationComponen
 			}
 		}
 
-		myUpdateTranslationAlarm.addRequest( () -> {
+		myUpdateTranslationAlarm.addRequest(() -> TranslationThreads.execute(() -> {
 			if(myProject.isDisposed()) return ;
 			LOG.debug("Started fetching com.intellij.translation...");
-			final Throwable[] ex = new Throwable[1];
-			String text = null;
+			trace.mark(TraceStage.QUEUE_WAIT);
+			TranslationTracer.attach(trace);
+			CompletableFuture<TranslationResult> future;
 			try{
-				text = provider.getTranslation();
+				future = provider.getTranslation();
 			}catch (Throwable e){
-				LOG.info(e);
-				ex[0] = e;
-			}
-			if(ex[0] != null){
-				//noinspection SSBasedInspection
-				SwingUtilities.invokeLater(() -> {
-					String message = ex[0] instanceof IndexNotReadyException
-						? "Translation is not available until indices are built."
-						: TranslationBundle.message("translation.external.fetch.error.message");
-					component.setText(message, null, null);
-					callback.setDone();
-				});
-				return;
+				future = new CompletableFuture<>();
+				future.completeExceptionally(e);
+			}finally {
+				TranslationTracer.attach(null);
 			}
+			// no thread waits for the translator, rendering continues on a pipeline thread once it answers
+			future.whenCompleteAsync((translation, e) -> showTranslation(component, provider, trace, callback, translation, e),
+				TranslationThreads::execute);
+		}), delay);
 
-			LOG.debug("Translation fetched successfully:\n", text);
-
-			final String translationText = text;
+		return callback;
+	}
 
+	private void showTranslation(final TranslationComponent component, final TranslationCollector provider, final TranslationTrace trace,
+	                             final ActionCallback callback, @Nullable final TranslationResult translation, @Nullable Throwable error){
+		if(error instanceof CompletionException && error.getCause() != null){
+			error = error.getCause();
+		}
+		if(error != null){
+			LOG.info(error);
+			final Throwable ex = error;
 			//noinspection SSBasedInspection
 			SwingUtilities.invokeLater(() -> {
-				PsiDocumentManager.getInstance(myProject).commitAllDocuments();
-
-				if(translationText == null){
-					component.setText(TranslationBundle.message("translation.no.info.found"), provider.getQuery(), null);
-				}else if(translationText.isEmpty()){
-					component.setText(component.getText(), provider.getQuery(), null);
-				}else{
-					component.setData(provider.getQuery(), translationText, provider.getTranslator());
-				}
+				trace.mark(TraceStage.EDT_DISPATCH);
+				String message = ex instanceof IndexNotReadyException
+					? "Translation is not available until indices are built."
+					: TranslationBundle.message("translation.external.fetch.error.message");
+				component.setText(message, null, null);
+				trace.mark(TraceStage.PAINT);
+				TranslationTracer.finish(trace);
+				callback.setDone();
+			});
+			return;
+		}
 
-				final AbstractPopup jbPopup = (AbstractPopup) getTranslationHint();
-				if(jbPopup == null){
-					callback.setDone();
-					return ;
+		LOG.debug("Translation fetched successfully for ", provider.getQuery());
+
+		// render and parse here rather than on the EDT, large web results take a while
+		final Document document = translation != null ? component.createDocument(translation) : null;
+		trace.mark(TraceStage.HTML_RENDER);
+
+		//noinspection SSBasedInspection
+		SwingUtilities.invokeLater(() -> {
+			trace.mark(TraceStage.EDT_DISPATCH);
+			if(myProject.isDisposed()) return;
+			PsiDocumentManager.getInstance(myProject).commitAllDocuments();
+
+			if(translation == null){
+				final String message = provider.isTranslatable()
+					? TranslationBundle.message("translation.no.info.found")
+					: TranslationBundle.message("translation.nothing.to.translate");
+				component.setText(message, provider.getQuery(), null);
+			}else{
+				component.setData(provider.getQuery(), translation, document, provider.getTranslator(), provider.getApproximateQuery());
+				TranslationHistory.getInstance(myProject).add(translation, provider.getTranslator());
+				if(provider.getApproximateQuery() != null){
+					refreshApproximate(component, provider);
 				}
+			}
+			trace.mark(TraceStage.PAINT);
+			TranslationTracer.finish(trace);
 
-				jbPopup.setDimensionServiceKey(TRANSLATION_LOCATION_AND_SIZE);
-				jbPopup.setCaption(getTitle(null, false));
+			final AbstractPopup jbPopup = (AbstractPopup) getTranslationHint();
+			if(jbPopup == null){
 				callback.setDone();
+				return ;
+			}
+
+			jbPopup.setDimensionServiceKey(TRANSLATION_LOCATION_AND_SIZE);
+			jbPopup.setCaption(getTitle(null, false));
+			callback.setDone();
+		});
+	}
+
+	/**
+	 * Replaces a translation served from a related form's cache entry with the exact one once it arrives.
+	 */
+	private void refreshApproximate(final TranslationComponent component, final TranslationCollector provider){
+		provider.refresh().whenCompleteAsync((result, e) -> {
+			if(e != null){
+				LOG.info(e);
+				return;
+			}
+			if(result == null || !result.isSuccessful()) return;
+
+			final Document document = component.createDocument(result);
+			//noinspection SSBasedInspection
+			SwingUtilities.invokeLater(() -> {
+				if(myProject.isDisposed() || !isSameQuery(component.getQuery(), provider.getQuery())) return;
+				component.setData(provider.getQuery(), result, document, provider.getTranslator(), null);
+				TranslationHistory.getInstance(myProject).add(result, provider.getTranslator());
 			});
-		}, 10);
+		}, TranslationThreads::execute);
+	}
 
-		return callback;
+	/**
+	 * Compares queries ignoring leading, trailing and repeated whitespace, so re-selecting the same words
+	 * with a slightly different range does not trigger another request.
+	 */
+	static boolean isSameQuery(@Nullable String query1, @Nullable String query2) {
+		if(query1 == null || query2 == null) return query1 == query2;
+		return normalizeQuery(query1).equals(normalizeQuery(query2));
+	}
+
+	@NotNull
+	static String normalizeQuery(@NotNull String query) {
+		StringBuilder builder = new StringBuilder(query.length());
+		boolean whitespace = false;
+		for(int i = 0; i < query.length(); i++){
+			char c = query.charAt(i);
+			if(Character.isWhitespace(c)){
+				whitespace = builder.length() > 0;
+			}else{
+				if(whitespace){
+					builder.append(' ');
+					whitespace = false;
+				}
+				builder.append(c);
+			}
+		}
+		return builder.toString();
 	}
 
 	private TranslationCollector getDefaultCollector(final String queryText){
@@ -466,20 +633,36 @@ public class TranslationManager extends DockablePopupManager<TranslationComponen
 	}
 
 	private interface TranslationCollector {
-		@Nullable
-		String getTranslation() throws Exception;
+		/**
+		 * Answers from the caches right away, a fetch completes the future later from the translator's bulkhead.
+		 */
+		@NotNull
+		CompletableFuture<TranslationResult> getTranslation();
 		@Nullable
 		String getQuery();
 		@Nullable
 		String getExternalUrl();
 		@Nullable
 		Translator getTranslator();
+		boolean isTranslatable();
+		/**
+		 * @return the related form whose cached translation was returned for an inflected query, <code>null</code> for exact results
+		 */
+		@Nullable
+		String getApproximateQuery();
+		/**
+		 * Fetches the exact query again, bypassing the cache.
+		 */
+		@NotNull
+		CompletableFuture<TranslationResult> refresh();
 	}
 
 	private class DefaultTranslationCollector implements TranslationCollector {
 		private final String myQuery;
 		private String myExternalUrl;
 		private Translator myTranslator;
+		private boolean myTranslatable = true;
+		private String myApproximateQuery;
 
 		public DefaultTranslationCollector(String query) {
 			this.myQuery = query;
@@ -503,22 +686,164 @@ public class TranslationManager extends DockablePopupManager<TranslationComponen
 			return myTranslator;
 		}
 
+		@Override
+		public boolean isTranslatable() {
+			return myTranslatable;
+		}
+
 		@Nullable
 		@Override
-		public String getTranslation() throws Exception {
+		public String getApproximateQuery() {
+			return myApproximateQuery;
+		}
+
+		@NotNull
+		@Override
+		public CompletableFuture<TranslationResult> getTranslation() {
 			if(myQuery != null){
-				for(Translator provider: TranslationManager.TRANSLATOR_EP.getExtensions()){
-					final String translation = provider.fetchInfo(myQuery);
-					if(translation != null){
-						LOG.debug("Fetched translation from ", provider.getTitle());
-						myExternalUrl = provider.getExternalUrl(myQuery);
-						myTranslator = provider;
-						return translation;
+				// numbers, hashes and links never produce a useful translation, don't spend a request on them
+				if(!LanguageDetector.isTranslatable(myQuery)){
+					myTranslatable = false;
+					return CompletableFuture.completedFuture(null);
+				}
+
+				final TranslationCache.Hit hit = TranslationCache.getInstance().get(myQuery);
+				TranslationTracer.mark(TraceStage.CACHE_LOOKUP);
+				if(hit != null){
+					TranslationMetrics.forTranslator(hit.getTranslator()).recordCacheHit();
+					setTranslator(hit.getTranslator());
+					myApproximateQuery = hit.isApproximate() ? hit.getQuery() : null;
+					return CompletableFuture.completedFuture(hit.getResult());
+				}
+
+				final TranslationResult shared = getShared();
+				return shared != null ? CompletableFuture.completedFuture(shared) : fetch(getTranslators(), 0, null, null);
+			}
+			return CompletableFuture.completedFuture(null);
+		}
+
+		@NotNull
+		@Override
+		public CompletableFuture<TranslationResult> refresh() {
+			myApproximateQuery = null;
+			return myQuery != null ? fetch(getTranslators(), 0, null, null) : CompletableFuture.completedFuture(null);
+		}
+
+		/**
+		 * Asks the translators one after another, each one only once the previous one answered without a translation.
+		 *
+		 * @param failure the first failed request so far, returned if no translator answers
+		 */
+		@NotNull
+		private CompletableFuture<TranslationResult> fetch(@NotNull List<TranslatorEP> translators, int index,
+		                                                   @Nullable TranslationResult failure, @Nullable Translator failed) {
+			if(index >= translators.size()){
+				if(failure != null){
+					setTranslator(failed);
+				}
+				return CompletableFuture.completedFuture(failure);
+			}
+
+			final Translator provider = translators.get(index).getInstance();
+			if(!TranslatorRouter.getHealth(provider).allowsRequest()){
+				// the circuit is open or its half-open probe is already on the way
+				LOG.debug("Skipping ", provider.getTitle(), ", its circuit is open");
+				return failure == null
+					? fetch(translators, index + 1, TranslationResult.failure(myQuery, provider.getTitle() + " is temporarily unavailable"), provider)
+					: fetch(translators, index + 1, failure, failed);
+			}
+			final long start = System.nanoTime();
+			final CompletableFuture<TranslationResult> future = TranslatorBulkheads.fetchResult(provider, myQuery);
+			future.whenComplete((result, e) -> {
+				if(e != null){
+					TranslatorRouter.record(provider, false, System.nanoTime() - start);
+				}
+			});
+			return future.thenCompose(result -> {
+				TranslatorRouter.record(provider, result, System.nanoTime() - start);
+				if(result != null && result.getErrorCode() == TranslationResult.FAILURE){
+					// the request failed even after retries, the next translator may still answer
+					TranslationMetrics.forTranslator(provider).recordCacheMiss();
+					return failure == null
+						? fetch(translators, index + 1, result, provider)
+						: fetch(translators, index + 1, failure, failed);
+				}
+				if(result != null){
+					LOG.debug("Fetched translation from ", provider.getTitle());
+					TranslationMetrics.forTranslator(provider).recordCacheMiss();
+					if(result.isSuccessful()){
+						TranslationCache.getInstance().put(myQuery, provider, result);
+						final SharedTranslationCache sharedCache = SharedTranslationCache.getInstance();
+						if(sharedCache != null){
+							sharedCache.put(myQuery, provider.getClass().getName(), result);
+						}
 					}
+					setTranslator(provider);
+					return CompletableFuture.completedFuture(result);
+				}
+				return fetch(translators, index + 1, failure, failed);
+			});
+		}
+
+		/**
+		 * Looks for a translation another IDE instance already fetched.
+		 */
+		@Nullable
+		private TranslationResult getShared() {
+			final SharedTranslationCache sharedCache = SharedTranslationCache.getInstance();
+			final SharedTranslationCache.Entry entry = sharedCache != null ? sharedCache.get(myQuery) : null;
+			if(entry == null) return null;
+
+			for(TranslatorEP translatorEP : getTranslators()){
+				if(translatorEP.getImplementationClass().equals(entry.getTranslatorClass())){
+					final Translator translator = translatorEP.getInstance();
+					TranslationMetrics.forTranslator(translator).recordCacheHit();
+					TranslationCache.getInstance().put(myQuery, translator, entry.getResult());
+					setTranslator(translator);
+					return entry.getResult();
 				}
 			}
 			return null;
 		}
+
+		private void setTranslator(@NotNull Translator translator) {
+			TranslationTrace trace = TranslationTracer.current();
+			if(trace != null){
+				trace.setTranslator(translator.getTitle());
+			}
+			myExternalUrl = translator.getExternalUrl(myQuery);
+			myTranslator = translator;
+		}
+
+		/**
+		 * Translators able to fetch, not instantiated yet. Smart routing wins over a specified translator, which in turn
+		 * is tried before the rest in extension order.
+		 */
+		private List<TranslatorEP> getTranslators() {
+			final List<TranslatorEP> translators = new ArrayList<>();
+			for(TranslatorEP translatorEP : TRANSLATOR_EP.getExtensions()){
+				if(translatorEP.hasCapability(TranslatorEP.FETCH)){
+					translators.add(translatorEP);
+				}
+			}
+			final TranslationSettingsSnapshot settings = TranslationSettingsSnapshot.current();
+			if(settings.isEnableSmartRouting()){
+				return TranslatorRouter.order(translators);
+			}
+			if(settings.isEnableSpecified()){
+				final String specified = settings.getSpecifiedTranslator();
+				final List<TranslatorEP> ordered = new ArrayList<>(translators.size());
+				for(TranslatorEP translatorEP : translators){
+					if(translatorEP.getImplementationClass().equals(specified)){
+						ordered.add(0, translatorEP);
+					}else{
+						ordered.add(translatorEP);
+					}
+				}
+				return ordered;
+			}
+			return translators;
+		}
 	}
 
 	void showHint(final JBPopup hint) {
@@ -0,0 +1,159 @@
+/*
+ * Copyright 2016 Yuyou Chow
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intellij.translation;
+
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.translation.translator.TranslationResult;
+import com.intellij.translation.translator.Translator;
+import com.intellij.util.ResourceUtil;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Turns a {@link TranslationResult} into the HTML shown by {@link TranslationComponent}.
+ * Rendering is cheap compared to fetching, so it happens each time a result is displayed.
+ */
+public class TranslationRenderer {
+	private static final Logger LOG = Logger.getInstance("#" + TranslationRenderer.class.getName());
+
+	private TranslationRenderer() {
+	}
+
+	@NotNull
+	public static String render(@NotNull TranslationResult result) {
+		if(result.getHtml() != null){
+			return result.getHtml();
+		}
+		if(result.getErrorCode() == TranslationResult.FAILURE){
+			return result.getErrorMessage() != null ? escape(result.getErrorMessage()) : "";
+		}
+		return decorateHtml(renderBody(result));
+	}
+
+	@NotNull
+	public static String decorateHtml(@NotNull String body) {
+		return "<html>" + StyleHolder.HTTP_STYLE + "<body>" + body + "</body></html>";
+	}
+
+	/**
+	 * Loads youdao.css when the first result is rendered rather than with the class. Without it results are
+	 * still shown, just plain.
+	 */
+	private static class StyleHolder {
+		private static final String HTTP_STYLE = loadStyle();
+
+		@NotNull
+		private static String loadStyle() {
+			try{
+				String css = ResourceUtil.loadText(ResourceUtil.getResource(Translator.class, "/css", "youdao.css"));
+				return "<style type=\"text/css\">\n" + css + "</style>\n";
+			}catch (IOException | RuntimeException e){
+				LOG.warn("Cannot load youdao.css", e);
+				return "";
+			}
+		}
+	}
+
+	@NotNull
+	static String renderBody(@NotNull TranslationResult result) {
+		StringBuilder builder = new StringBuilder();
+		if(!result.isSuccessful()){
+			return builder.append("错误代码：").append(result.getErrorCode()).append('\n').append(escape(result.getErrorMessage())).toString();
+		}
+
+		List<String> translations = result.getTranslations();
+		if(!translations.isEmpty()){
+			builder.append("<div class=\"trans\">").append(escape(result.getQuery())).append(" : ");
+			for(int i = 0; i < translations.size(); i++){
+				if(i > 0){
+					builder.append(';');
+				}
+				builder.append(escape(translations.get(i)));
+			}
+			builder.append("</div>");
+
+			if(result.getUsPhonetic() != null || result.getUkPhonetic() != null){
+				builder.append("<div class=\"baav\">");
+				appendPhonetic(builder, "美式：", result.getUsPhonetic());
+				appendPhonetic(builder, "英式：", result.getUkPhonetic());
+				builder.append("</div>");
+			}else if(result.getPhonetic() != null){
+				builder.append("<div class=\"baav\">");
+				appendPhonetic(builder, "拼音：", result.getPhonetic());
+				builder.append("</div>");
+			}
+
+			if(!result.getExplains().isEmpty()){
+				builder.append("<div class=\"trans-container\"><ul>");
+				for(String explain : result.getExplains()){
+					builder.append("<li>").append(escape(explain)).append("</li>");
+				}
+				builder.append("</ul></div>");
+			}
+		}
+
+		if(!result.getWebEntries().isEmpty()){
+			builder.append("<div class=\"web-trans\">网络释义</div><div class=\"trans-container\"><ul>");
+			for(TranslationResult.WebEntry entry : result.getWebEntries()){
+				builder.append("<li>").append(escape(entry.getKey())).append(" : ");
+				List<String> values = entry.getValues();
+				for(int i = 0; i < values.size(); i++){
+					if(i > 0){
+						builder.append(',');
+					}
+					builder.append(escape(values.get(i)));
+				}
+				builder.append("</li>");
+			}
+			builder.append("</ul></div>");
+		}
+
+		if(builder.length() == 0){
+			builder.append("<h3>你选的内容：<span>").append(escape(result.getQuery())).append("</span> 抱歉,翻译不了...</h3>");
+		}
+		return builder.toString();
+	}
+
+	private static void appendPhonetic(@NotNull StringBuilder builder, @NotNull String label, String phonetic) {
+		if(phonetic != null){
+			builder.append("<span class=\"pronounce\"> ").append(label).append("<span class=\"phonetic\">[")
+				.append(escape(phonetic)).append("]</span></span>");
+		}
+	}
+
+	@NotNull
+	private static String escape(String text) {
+		if(text == null){
+			return "";
+		}
+		StringBuilder builder = null;
+		for(int i = 0; i < text.length(); i++){
+			char c = text.charAt(i);
+			String replacement = c == '<' ? "&lt;" : c == '>' ? "&gt;" : c == '&' ? "&amp;" : c == '"' ? "&quot;" : null;
+			if(replacement != null){
+				if(builder == null){
+					builder = new StringBuilder(text.length() + 16).append(text, 0, i);
+				}
+				builder.append(replacement);
+			}else if(builder != null){
+				builder.append(c);
+			}
+		}
+		return builder != null ? builder.toString() : text;
+	}
+}
@@ -0,0 +1,32 @@
+/*
+ * Copyright 2016 Yuyou Chow
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intellij.translation;
+
+import com.intellij.openapi.project.DumbAware;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.startup.StartupActivity;
+import com.intellij.translation.settings.TranslationSettingsSnapshot;
+import org.jetbrains.annotations.NotNull;
+
+public class TranslationStartupActivity implements StartupActivity, DumbAware {
+	@Override
+	public void runActivity(@NotNull Project project) {
+		TranslationManager.getInstance(project).warmUp();
+		if(TranslationSettingsSnapshot.current().isWarmUp()){
+			TranslationWarmUp.start();
+		}
+	}
+}
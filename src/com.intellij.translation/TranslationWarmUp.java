@@ -0,0 +1,127 @@
+/*
+ * Copyright 2016 Yuyou Chow
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intellij.translation;
+
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.translation.concurrent.TranslationThreads;
+import com.intellij.translation.translator.TranslationResult;
+import com.intellij.translation.translator.Translator;
+import com.intellij.translation.translator.TranslatorEP;
+import com.intellij.translation.translator.TranslatorEx;
+import com.intellij.translation.translator.TranslatorUtil;
+import com.intellij.translation.translator.YoudaoTranslator;
+import com.intellij.util.ui.UIUtil;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.StringEntity;
+import org.jetbrains.annotations.NonNls;
+import org.jetbrains.annotations.NotNull;
+
+import javax.swing.text.Document;
+import javax.swing.text.html.HTMLEditorKit;
+import java.io.StringReader;
+import java.net.InetAddress;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Does the one-time work of the first translation ahead of it: resolves the translators' hosts, leaves a connection
+ * to each in the shared pool, and loads and initializes HttpClient, Gson, the renderer with its style sheet and the
+ * HTML editor kit by running a sample response through them.
+ * <p>
+ * Runs once per IDE on a pipeline thread, nothing is sent to the translators. The pooled connections are
+ * closed after {@link TranslationConstants#HTTP_IDLE_TIMEOUT} unless a translation uses them.
+ */
+class TranslationWarmUp {
+	private static final Logger LOG = Logger.getInstance("#" + TranslationWarmUp.class.getName());
+
+	@NonNls private static final String SAMPLE_QUERY = "warm up";
+	@NonNls private static final String SAMPLE_JSON = "{\"translation\":[\"warm up\"],\"basic\":{\"us-phonetic\":\"w\u0254rm \u028Cp\"," +
+		"\"phonetic\":\"w\u0254\u02D0m \u028Cp\",\"uk-phonetic\":\"w\u0254\u02D0m \u028Cp\",\"explains\":[\"warm up\"]}," +
+		"\"query\":\"warm up\",\"errorCode\":0,\"web\":[{\"value\":[\"warm up\"],\"key\":\"warm up\"}]}";
+
+	private static final AtomicBoolean ourStarted = new AtomicBoolean();
+
+	private TranslationWarmUp() {
+	}
+
+	static void start() {
+		if(!ourStarted.compareAndSet(false, true)){
+			return;
+		}
+		TranslationThreads.execute(TranslationWarmUp::run);
+	}
+
+	private static void run() {
+		long start = System.nanoTime();
+		List<Translator> translators = new ArrayList<>();
+		for(TranslatorEP translatorEP : TranslationManager.TRANSLATOR_EP.getExtensions()){
+			if(translatorEP.hasCapability(TranslatorEP.FETCH)){
+				translators.add(translatorEP.getInstance());
+			}
+		}
+		for(URI url : getUrls(translators)){
+			try{
+				InetAddress.getAllByName(url.getHost());
+				TranslatorUtil.preconnect(url);
+			}catch (InterruptedException e){
+				return;
+			}catch (Exception e){
+				// offline or behind a proxy, the translation will tell
+				LOG.debug("Cannot warm up the connection to " + url.getHost() + ": " + e);
+			}
+		}
+		long network = System.nanoTime();
+
+		try{
+			TranslationResult result = null;
+			for(Translator translator : translators){
+				if(translator instanceof YoudaoTranslator){
+					result = ((YoudaoTranslator)translator).generateResult(SAMPLE_QUERY, new StringEntity(SAMPLE_JSON, ContentType.APPLICATION_JSON));
+				}
+			}
+			String html = TranslationRenderer.render(result != null ? result : TranslationResult.failure(SAMPLE_QUERY, SAMPLE_QUERY));
+			HTMLEditorKit editorKit = UIUtil.getHTMLEditorKit(false);
+			Document document = editorKit.createDefaultDocument();
+			editorKit.read(new StringReader(html), document, 0);
+		}catch (Exception e){
+			LOG.warn(e);
+		}
+		long end = System.nanoTime();
+
+		LOG.debug("Translation warm-up took " + (end - start) / 1000000 + "ms: connections " + (network - start) / 1000000 +
+			"ms, classes " + (end - network) / 1000000 + "ms");
+	}
+
+	@NotNull
+	private static Set<URI> getUrls(@NotNull List<Translator> translators) {
+		Set<URI> urls = new LinkedHashSet<>();
+		for(Translator translator : translators){
+			if(translator instanceof TranslatorEx){
+				try{
+					URI url = ((TranslatorEx)translator).createUrl(SAMPLE_QUERY);
+					urls.add(new URI(url.getScheme(), null, url.getHost(), url.getPort(), null, null, null));
+				}catch (Exception e){
+					LOG.debug(e);
+				}
+			}
+		}
+		return urls;
+	}
+}
@@ -28,7 +28,8 @@ import com.intellij.openapi.ui.popup.PopupStep;
 import com.intellij.openapi.ui.popup.util.BaseListPopupStep;
 import com.intellij.openapi.util.text.StringUtil;
 import com.intellij.translation.TranslationManager;
-import com.intellij.translation.translator.Translator;
+import com.intellij.translation.concurrent.TranslationThreads;
+import com.intellij.translation.translator.TranslatorEP;
 import com.intellij.util.ArrayUtil;
 import com.intellij.util.containers.ContainerUtil;
 
@@ -80,16 +81,19 @@ public class ExternalTranslationAction extends AnAction {
 	public static void showExternalTranslation(String query, String externalUrl, DataContext dataContext){
 		final Component contextComponent = PlatformDataKeys.CONTEXT_COMPONENT.getData(dataContext);
 
-		ApplicationManager.getApplication().executeOnPooledThread(() -> {
+		TranslationThreads.execute(() -> {
 			final List<String> urls = new ArrayList<String>();
 			final List<Icon> icons = new ArrayList<Icon>();
 
 			if(StringUtil.isEmptyOrSpaces(externalUrl)){
-				for(Translator translator: TranslationManager.TRANSLATOR_EP.getExtensions()){
-					String url = translator.getExternalUrl(query);
+				for(TranslatorEP translatorEP: TranslationManager.TRANSLATOR_EP.getExtensions()){
+					if(!translatorEP.hasCapability(TranslatorEP.EXTERNAL)) continue;
+
+					// building a link is cheap and must not wait behind fetches on the bulkhead
+					final String url = translatorEP.getInstance().getExternalUrl(query);
 					if(url != null){
 						urls.add(url);
-						icons.add(translator.getIcon());
+						icons.add(translatorEP.getIcon());
 					}
 				}
 			}else{
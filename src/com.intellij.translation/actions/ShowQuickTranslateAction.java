@@ -25,6 +25,7 @@ import com.intellij.openapi.project.DumbAware;
 import com.intellij.openapi.project.Project;
 import com.intellij.psi.PsiFile;
 import com.intellij.translation.TranslationManager;
+import com.intellij.translation.diagnostic.TranslationTracer;
 import org.jetbrains.annotations.NotNull;
 
 /**
@@ -45,7 +46,13 @@ public class ShowQuickTranslateAction extends BaseCodeInsightAction implements H
 		return new CodeInsightActionHandler() {
 			@Override
 			public void invoke(@NotNull Project project, @NotNull Editor editor, @NotNull PsiFile file) {
-				TranslationManager.getInstance(project).showTranslation(editor);
+				TranslationTracer.start();
+				try{
+					TranslationManager.getInstance(project).showTranslation(editor);
+				}finally {
+					// the trace is taken over if a fetch was scheduled
+					TranslationTracer.attach(null);
+				}
 			}
 			@Override
 			public boolean startInWriteAction() {
@@ -0,0 +1,165 @@
+/*
+ * Copyright 2016 Yuyou Chow
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intellij.translation.cache;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Small LZ4-style block compressor: a sequence of (literals, back reference) pairs found through a hash of the
+ * next four bytes. Each sequence starts with a token whose high nibble is the literal count and low nibble the
+ * match length minus 4, both extended by 255-bytes when they reach 15, and the back reference is a 16-bit
+ * little endian offset. The last sequence carries literals only.
+ */
+class BlockCompressor {
+	private static final int MIN_MATCH = 4;
+	private static final int MAX_OFFSET = 0xFFFF;
+	private static final int HASH_BITS = 12;
+	/** far beyond any translation, a larger length can only come from a damaged block */
+	static final int MAX_RAW_LENGTH = 16 * 1024 * 1024;
+	/** a length byte adds at most 255 bytes of output, the rest is slack for a token with its nibbles */
+	private static final int MAX_RATIO = 255;
+
+	private BlockCompressor() {
+	}
+
+	@NotNull
+	static byte[] compress(@NotNull byte[] source, int length) {
+		int[] table = new int[1 << HASH_BITS];
+		Arrays.fill(table, -1);
+		byte[] out = new byte[length + length / 255 + 16];
+		int op = 0;
+		int anchor = 0;
+		int ip = 0;
+		while(ip + MIN_MATCH <= length){
+			int sequence = readInt(source, ip);
+			int hash = (sequence * -1640531535) >>> (32 - HASH_BITS);
+			int reference = table[hash];
+			table[hash] = ip;
+			if(reference < 0 || ip - reference > MAX_OFFSET || readInt(source, reference) != sequence){
+				ip++;
+				continue;
+			}
+
+			int matchLength = MIN_MATCH;
+			while(ip + matchLength < length && source[reference + matchLength] == source[ip + matchLength]){
+				matchLength++;
+			}
+			op = writeSequence(out, op, source, anchor, ip - anchor, ip - reference, matchLength);
+			ip += matchLength;
+			anchor = ip;
+		}
+		op = writeSequence(out, op, source, anchor, length - anchor, 0, 0);
+		return Arrays.copyOf(out, op);
+	}
+
+	/**
+	 * Reads {@code compressedLength} bytes from the buffer's position, leaving it right after them. The lengths are
+	 * checked before anything is allocated, they come from records other processes may have damaged.
+	 */
+	@NotNull
+	static byte[] decompress(@NotNull ByteBuffer in, int compressedLength, int rawLength) throws IOException {
+		if(compressedLength < 0 || compressedLength > in.remaining()){
+			throw new IOException("Invalid compressed length " + compressedLength);
+		}
+		if(rawLength < 0 || rawLength > MAX_RAW_LENGTH || rawLength > (long)compressedLength * MAX_RATIO + 64){
+			throw new IOException("Invalid uncompressed length " + rawLength);
+		}
+		byte[] out = new byte[rawLength];
+		int end = in.position() + compressedLength;
+		int op = 0;
+		try{
+			while(in.position() < end){
+				int token = in.get() & 0xFF;
+				int literals = readLength(in, token >>> 4);
+				if(op + literals > rawLength){
+					throw new IOException("Literals exceed the uncompressed length");
+				}
+				in.get(out, op, literals);
+				op += literals;
+				if(in.position() >= end){
+					break;
+				}
+
+				int offset = (in.get() & 0xFF) | (in.get() & 0xFF) << 8;
+				int matchLength = readLength(in, token & 0xF) + MIN_MATCH;
+				int reference = op - offset;
+				if(offset == 0 || reference < 0 || op + matchLength > rawLength){
+					throw new IOException("Invalid back reference");
+				}
+				// byte by byte, the match may overlap the bytes it produces
+				for(int i = 0; i < matchLength; i++){
+					out[op++] = out[reference++];
+				}
+			}
+		}catch (BufferUnderflowException e){
+			throw new IOException("Truncated block", e);
+		}
+		if(op != rawLength || in.position() != end){
+			throw new IOException("Block does not match its declared length");
+		}
+		return out;
+	}
+
+	private static int writeSequence(byte[] out, int op, byte[] source, int literalStart, int literals, int offset, int matchLength) {
+		int tokenPosition = op++;
+		int literalNibble = Math.min(literals, 15);
+		int matchNibble = matchLength > 0 ? Math.min(matchLength - MIN_MATCH, 15) : 0;
+		out[tokenPosition] = (byte)(literalNibble << 4 | matchNibble);
+		if(literalNibble == 15){
+			op = writeLength(out, op, literals - 15);
+		}
+		System.arraycopy(source, literalStart, out, op, literals);
+		op += literals;
+		if(matchLength > 0){
+			out[op++] = (byte)offset;
+			out[op++] = (byte)(offset >>> 8);
+			if(matchNibble == 15){
+				op = writeLength(out, op, matchLength - MIN_MATCH - 15);
+			}
+		}
+		return op;
+	}
+
+	private static int writeLength(byte[] out, int op, int remaining) {
+		while(remaining >= 255){
+			out[op++] = (byte)255;
+			remaining -= 255;
+		}
+		out[op++] = (byte)remaining;
+		return op;
+	}
+
+	private static int readLength(ByteBuffer in, int nibble) {
+		int length = nibble;
+		if(nibble == 15){
+			int b;
+			do{
+				b = in.get() & 0xFF;
+				length += b;
+			}while(b == 255);
+		}
+		return length;
+	}
+
+	private static int readInt(byte[] source, int offset) {
+		return (source[offset] & 0xFF) | (source[offset + 1] & 0xFF) << 8 | (source[offset + 2] & 0xFF) << 16 | source[offset + 3] << 24;
+	}
+}
@@ -0,0 +1,179 @@
+/*
+ * Copyright 2016 Yuyou Chow
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intellij.translation.cache;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Reduces an inflected English word to a lookup key shared by its forms, so <code>translated</code>,
+ * <code>translating</code> and <code>translates</code> all map to the entry of <code>translate</code>.
+ * The key is not always a dictionary word (a final <i>e</i> is dropped), it only has to be the same for every form.
+ */
+public class EnglishLemmatizer {
+	private static final int MIN_STEM_LENGTH = 3;
+
+	private static final Map<String, String> IRREGULAR = new HashMap<>();
+
+	static {
+		String[][] forms = {
+			{"be", "is", "are", "was", "were", "been", "being"},
+			{"have", "has", "had", "having"},
+			{"do", "does", "did", "done", "doing"},
+			{"go", "goes", "went", "gone"},
+			{"get", "got", "gotten", "getting"},
+			{"make", "made"},
+			{"take", "took", "taken"},
+			{"write", "wrote", "written"},
+			{"read", "reads"},
+			{"run", "ran"},
+			{"find", "found"},
+			{"build", "built"},
+			{"send", "sent"},
+			{"hold", "held"},
+			{"keep", "kept"},
+			{"leave", "left"},
+			{"lose", "lost"},
+			{"begin", "began", "begun"},
+			{"choose", "chose", "chosen"},
+			{"give", "gave", "given"},
+			{"know", "knew", "known"},
+			{"show", "shown"},
+			{"throw", "threw", "thrown"},
+			{"child", "children"},
+			{"man", "men"},
+			{"woman", "women"},
+			{"mouse", "mice"},
+			{"index", "indices"},
+			{"matrix", "matrices"},
+			{"vertex", "vertices"},
+			{"datum", "data"},
+			{"criterion", "criteria"},
+			{"analysis", "analyses"}
+		};
+		for(String[] group : forms){
+			String key = stripFinalE(group[0]);
+			for(String form : group){
+				IRREGULAR.put(form, key);
+			}
+		}
+	}
+
+	private EnglishLemmatizer() {
+	}
+
+	/**
+	 * @return the lemma key of a single English word, or <code>null</code> if <code>text</code> is not one
+	 */
+	@Nullable
+	public static String lemmatize(@NotNull String text) {
+		String word = text.trim();
+		if(word.isEmpty()){
+			return null;
+		}
+		for(int i = 0; i < word.length(); i++){
+			char c = word.charAt(i);
+			if(!(c >= 'a' && c <= 'z') && !(c >= 'A' && c <= 'Z')){
+				return null;
+			}
+		}
+		word = word.toLowerCase();
+
+		String irregular = IRREGULAR.get(word);
+		if(irregular != null){
+			return irregular;
+		}
+		return stripFinalE(stripInflection(word));
+	}
+
+	@NotNull
+	private static String stripInflection(@NotNull String word) {
+		if(word.endsWith("ies") && word.length() > 4){
+			return word.substring(0, word.length() - 3) + "y";
+		}
+		if(word.endsWith("ied") && word.length() > 4){
+			return word.substring(0, word.length() - 3) + "y";
+		}
+		if(word.endsWith("sses")){
+			return word.substring(0, word.length() - 2);
+		}
+		if(word.endsWith("es") && (word.endsWith("xes") || word.endsWith("zes") || word.endsWith("ches") || word.endsWith("shes"))){
+			return word.substring(0, word.length() - 2);
+		}
+		if(word.endsWith("s") && !word.endsWith("ss") && !word.endsWith("us") && !word.endsWith("is") && word.length() > MIN_STEM_LENGTH){
+			return word.substring(0, word.length() - 1);
+		}
+		if(word.endsWith("ing")){
+			return undouble(stripSuffix(word, 3));
+		}
+		// speed, proceed, agreed: too ambiguous to strip
+		if(word.endsWith("ed") && !word.endsWith("eed")){
+			return undouble(stripSuffix(word, 2));
+		}
+		return word;
+	}
+
+	/**
+	 * Strips a verb suffix only if a plausible stem (with a vowel) remains: <code>sing</code> and <code>red</code> stay.
+	 */
+	@NotNull
+	private static String stripSuffix(@NotNull String word, int suffixLength) {
+		String stem = word.substring(0, word.length() - suffixLength);
+		if(stem.length() < MIN_STEM_LENGTH || !hasVowel(stem)){
+			return word;
+		}
+		return stem;
+	}
+
+	/**
+	 * <code>stopp</code> -&gt; <code>stop</code>, but <code>spell</code>, <code>pass</code> and <code>buzz</code> keep their double letter.
+	 */
+	@NotNull
+	private static String undouble(@NotNull String stem) {
+		int length = stem.length();
+		if(length > MIN_STEM_LENGTH && stem.charAt(length - 1) == stem.charAt(length - 2)){
+			char c = stem.charAt(length - 1);
+			if(c != 'l' && c != 's' && c != 'z' && !isVowel(c)){
+				return stem.substring(0, length - 1);
+			}
+		}
+		return stem;
+	}
+
+	@NotNull
+	private static String stripFinalE(@NotNull String word) {
+		if(word.length() > MIN_STEM_LENGTH && word.endsWith("e") && !word.endsWith("ee")){
+			return word.substring(0, word.length() - 1);
+		}
+		return word;
+	}
+
+	private static boolean hasVowel(@NotNull String text) {
+		for(int i = 0; i < text.length(); i++){
+			if(isVowel(text.charAt(i))){
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static boolean isVowel(char c) {
+		return c == 'a' || c == 'e' || c == 'i' || c == 'o' || c == 'u' || c == 'y';
+	}
+}
@@ -0,0 +1,455 @@
+/*
+ * Copyright 2016 Yuyou Chow
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intellij.translation.cache;
+
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.application.PathManager;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.translation.settings.TranslationSettingsSnapshot;
+import com.intellij.translation.translator.TranslationResult;
+import org.jetbrains.annotations.NonNls;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+
+/**
+ * Translation cache shared by all IDE instances on the machine through a memory-mapped file in the system directory.
+ * <p>
+ * The file is a header, an open addressing index of (key hash, record offset) slots and an append-only record area.
+ * Records carry a checksum and are never modified once written. A single writer at a time, across processes, holds
+ * the file lock and bumps a sequence number to odd before and to even after touching the index; readers take no
+ * lock and retry when the sequence was odd or changed while they read. Mapped buffers give no ordering guarantees
+ * before Java 9, so the record checksum is what finally rejects anything read half-written.
+ * <p>
+ * When the record area or index fills up the cache starts over. Every append clears the record header after it, so
+ * records left behind from before the cache started over never look like the continuation of the current ones.
+ * A writer that died between the two sequence bumps leaves it odd, the next instance opening the file rebuilds the
+ * index from the records that still check out.
+ * <p>
+ * Like {@link TranslationCache} it starts over when the credentials or routing change, translations fetched with the
+ * old ones are not handed out afterwards. Other instances still on the old settings may add them again.
+ */
+public class SharedTranslationCache {
+	private static final Logger LOG = Logger.getInstance("#" + SharedTranslationCache.class.getName());
+
+	/** overrides the cache file location, mostly for processes without an IDE application */
+	@NonNls public static final String PATH_PROPERTY = "translation.shared.cache";
+	@NonNls private static final String FILE_NAME = "shared-cache.bin";
+
+	private static final int MAGIC = 0x54524348; // TRCH
+	private static final int FORMAT_VERSION = 2;
+	private static final int RECORD_MAGIC = 0x54524543; // TREC
+
+	private static final int MAGIC_OFFSET = 0;
+	private static final int VERSION_OFFSET = 4;
+	static final int SEQUENCE_OFFSET = 8;
+	private static final int WRITE_OFFSET = 16;
+	private static final int COUNT_OFFSET = 24;
+	private static final int HEADER_SIZE = 64;
+
+	private static final int SLOTS = 1 << 16;
+	private static final int MAX_PROBES = 64;
+	private static final int INDEX_OFFSET = HEADER_SIZE;
+	private static final int DATA_OFFSET = INDEX_OFFSET + SLOTS * 8;
+	private static final int RECORD_HEADER_SIZE = 12;
+	private static final int MAX_RECORD_SIZE = 64 * 1024;
+	static final int FILE_SIZE = 32 * 1024 * 1024;
+
+	private static final int MAX_READ_ATTEMPTS = 8;
+
+	private static volatile SharedTranslationCache ourInstance;
+	private static volatile boolean ourInitialized;
+
+	private final FileChannel myChannel;
+	private final MappedByteBuffer myBuffer;
+	private volatile long mySettingsVersion;
+
+	SharedTranslationCache(@NotNull File file) throws IOException {
+		//noinspection ResultOfMethodCallIgnored
+		file.getParentFile().mkdirs();
+		RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+		if(randomAccessFile.length() != FILE_SIZE){
+			randomAccessFile.setLength(FILE_SIZE);
+		}
+		myChannel = randomAccessFile.getChannel();
+		myBuffer = myChannel.map(FileChannel.MapMode.READ_WRITE, 0, FILE_SIZE);
+		try(FileLock ignored = myChannel.lock()){
+			open();
+		}
+	}
+
+	/**
+	 * @return <code>null</code> when the cache file cannot be used, callers then simply go without it
+	 */
+	@Nullable
+	public static SharedTranslationCache getInstance() {
+		SharedTranslationCache cache = getOrCreateInstance();
+		if(cache != null){
+			cache.checkSettingsVersion();
+		}
+		return cache;
+	}
+
+	@Nullable
+	private static SharedTranslationCache getOrCreateInstance() {
+		if(!ourInitialized){
+			synchronized(SharedTranslationCache.class){
+				if(!ourInitialized){
+					File file = getFile();
+					if(file != null){
+						try{
+							ourInstance = new SharedTranslationCache(file);
+						}catch (IOException | RuntimeException e){
+							LOG.warn("Shared translation cache disabled: " + file, e);
+						}
+					}
+					ourInitialized = true;
+				}
+			}
+		}
+		return ourInstance;
+	}
+
+	@Nullable
+	private static File getFile() {
+		String path = System.getProperty(PATH_PROPERTY);
+		if(path != null){
+			return new File(path);
+		}
+		if(ApplicationManager.getApplication() == null){
+			return null;
+		}
+		return new File(new File(PathManager.getSystemPath(), "translation"), FILE_NAME);
+	}
+
+	@Nullable
+	public Entry get(@NotNull String query) {
+		String key = query.trim();
+		ByteBuffer buffer = myBuffer.duplicate();
+		for(int attempt = 0; attempt < MAX_READ_ATTEMPTS; attempt++){
+			long sequence = buffer.getLong(SEQUENCE_OFFSET);
+			if((sequence & 1) != 0 && attempt < MAX_READ_ATTEMPTS - 1){
+				Thread.yield();
+				continue;
+			}
+			Entry entry = lookup(buffer, key);
+			if(buffer.getLong(SEQUENCE_OFFSET) == sequence){
+				return entry;
+			}
+		}
+		return null;
+	}
+
+	public void put(@NotNull String query, @NotNull String translatorClass, @NotNull TranslationResult result) {
+		byte[] payload = encodePayload(query.trim(), translatorClass, result);
+		if(payload.length > MAX_RECORD_SIZE){
+			return;
+		}
+
+		synchronized(this){
+			try(FileLock ignored = myChannel.lock()){
+				long sequence = myBuffer.getLong(SEQUENCE_OFFSET);
+				if((sequence & 1) != 0){
+					recover();
+					sequence = myBuffer.getLong(SEQUENCE_OFFSET);
+				}
+				myBuffer.putLong(SEQUENCE_OFFSET, sequence + 1);
+				try{
+					append(query.trim(), payload);
+				}finally {
+					myBuffer.putLong(SEQUENCE_OFFSET, sequence + 2);
+				}
+			}catch (IOException e){
+				LOG.info(e);
+			}
+		}
+	}
+
+	public void clear() {
+		synchronized(this){
+			try(FileLock ignored = myChannel.lock()){
+				long sequence = myBuffer.getLong(SEQUENCE_OFFSET) | 1;
+				myBuffer.putLong(SEQUENCE_OFFSET, sequence);
+				try{
+					reset();
+					clearRecordHeader(DATA_OFFSET);
+				}finally {
+					myBuffer.putLong(SEQUENCE_OFFSET, sequence + 1);
+				}
+			}catch (IOException e){
+				LOG.info(e);
+			}
+		}
+	}
+
+	/**
+	 * Translations fetched with other credentials or routing are not reused, see {@link TranslationCache}.
+	 */
+	private void checkSettingsVersion() {
+		long version = TranslationSettingsSnapshot.current().getVersion();
+		if(version != mySettingsVersion){
+			synchronized(this){
+				if(version != mySettingsVersion){
+					if(mySettingsVersion != 0){
+						clear();
+					}
+					mySettingsVersion = version;
+				}
+			}
+		}
+	}
+
+	private void open() {
+		if(myBuffer.getInt(MAGIC_OFFSET) != MAGIC || myBuffer.getInt(VERSION_OFFSET) != FORMAT_VERSION){
+			myBuffer.putLong(SEQUENCE_OFFSET, 0);
+			reset();
+			clearRecordHeader(DATA_OFFSET);
+			myBuffer.putInt(VERSION_OFFSET, FORMAT_VERSION);
+			myBuffer.putInt(MAGIC_OFFSET, MAGIC);
+			return;
+		}
+		long writeOffset = myBuffer.getLong(WRITE_OFFSET);
+		if((myBuffer.getLong(SEQUENCE_OFFSET) & 1) != 0 || writeOffset < DATA_OFFSET || writeOffset > FILE_SIZE){
+			recover();
+		}
+	}
+
+	/**
+	 * Rebuilds the index from the records that still have a valid checksum, dropping everything after the first bad one.
+	 */
+	private void recover() {
+		long sequence = myBuffer.getLong(SEQUENCE_OFFSET) | 1;
+		myBuffer.putLong(SEQUENCE_OFFSET, sequence);
+		reset();
+
+		int offset = DATA_OFFSET;
+		int count = 0;
+		ByteBuffer buffer = myBuffer.duplicate();
+		while(true){
+			String key = readKey(buffer, offset);
+			if(key == null){
+				break;
+			}
+			if(index(key, offset)){
+				count++;
+			}
+			offset += RECORD_HEADER_SIZE + buffer.getInt(offset + 4);
+		}
+		myBuffer.putLong(WRITE_OFFSET, offset);
+		myBuffer.putInt(COUNT_OFFSET, count);
+		myBuffer.putLong(SEQUENCE_OFFSET, sequence + 1);
+		LOG.info("Recovered " + count + " shared translations");
+	}
+
+	private void reset() {
+		for(int i = 0; i < SLOTS; i++){
+			myBuffer.putLong(INDEX_OFFSET + i * 8, 0);
+		}
+		myBuffer.putLong(WRITE_OFFSET, DATA_OFFSET);
+		myBuffer.putInt(COUNT_OFFSET, 0);
+	}
+
+	/**
+	 * Ends the record area at the offset, recovery stops there instead of picking up what an earlier round left.
+	 */
+	private void clearRecordHeader(long offset) {
+		if(offset <= FILE_SIZE - RECORD_HEADER_SIZE){
+			myBuffer.putInt((int)offset, 0);
+			myBuffer.putInt((int)offset + 4, 0);
+			myBuffer.putInt((int)offset + 8, 0);
+		}
+	}
+
+	private void append(@NotNull String key, @NotNull byte[] payload) {
+		long writeOffset = myBuffer.getLong(WRITE_OFFSET);
+		if(writeOffset + RECORD_HEADER_SIZE + payload.length > FILE_SIZE || myBuffer.getInt(COUNT_OFFSET) >= SLOTS / 4 * 3){
+			reset();
+			clearRecordHeader(DATA_OFFSET);
+			writeOffset = DATA_OFFSET;
+		}
+
+		int offset = (int)writeOffset;
+		int nextOffset = offset + RECORD_HEADER_SIZE + payload.length;
+		clearRecordHeader(nextOffset);
+		CRC32 crc = new CRC32();
+		crc.update(payload);
+		ByteBuffer buffer = myBuffer.duplicate();
+		buffer.position(offset + RECORD_HEADER_SIZE);
+		buffer.put(payload);
+		buffer.putInt(offset + 4, payload.length);
+		buffer.putInt(offset + 8, (int)crc.getValue());
+		buffer.putInt(offset, RECORD_MAGIC);
+
+		if(index(key, offset)){
+			myBuffer.putInt(COUNT_OFFSET, myBuffer.getInt(COUNT_OFFSET) + 1);
+		}
+		myBuffer.putLong(WRITE_OFFSET, nextOffset);
+	}
+
+	/**
+	 * @return <code>true</code> if the key took a new slot, <code>false</code> if it replaced an older record or the probe ran out
+	 */
+	private boolean index(@NotNull String key, int offset) {
+		int hash = hash(key);
+		int slot = hash & (SLOTS - 1);
+		ByteBuffer buffer = myBuffer.duplicate();
+		for(int probe = 0; probe < MAX_PROBES; probe++){
+			int position = INDEX_OFFSET + slot * 8;
+			long value = buffer.getLong(position);
+			if(value == 0){
+				buffer.putLong(position, slotValue(hash, offset));
+				return true;
+			}
+			if((int)(value >>> 32) == hash && key.equals(readKey(buffer, (int)value))){
+				buffer.putLong(position, slotValue(hash, offset));
+				return false;
+			}
+			slot = (slot + 1) & (SLOTS - 1);
+		}
+		return false;
+	}
+
+	@Nullable
+	private static Entry lookup(@NotNull ByteBuffer buffer, @NotNull String key) {
+		int hash = hash(key);
+		int slot = hash & (SLOTS - 1);
+		for(int probe = 0; probe < MAX_PROBES; probe++){
+			long value = buffer.getLong(INDEX_OFFSET + slot * 8);
+			if(value == 0){
+				return null;
+			}
+			if((int)(value >>> 32) == hash){
+				Entry entry = readEntry(buffer, (int)value);
+				if(entry != null && entry.myQuery.equals(key)){
+					return entry;
+				}
+			}
+			slot = (slot + 1) & (SLOTS - 1);
+		}
+		return null;
+	}
+
+	/**
+	 * @return the payload of a record with a valid checksum positioned at its start, <code>null</code> otherwise
+	 */
+	@Nullable
+	private static ByteBuffer readPayload(@NotNull ByteBuffer buffer, int offset) {
+		if(offset < DATA_OFFSET || offset > FILE_SIZE - RECORD_HEADER_SIZE || buffer.getInt(offset) != RECORD_MAGIC){
+			return null;
+		}
+		int length = buffer.getInt(offset + 4);
+		if(length <= 0 || length > MAX_RECORD_SIZE || offset + RECORD_HEADER_SIZE + length > FILE_SIZE){
+			return null;
+		}
+		ByteBuffer payload = buffer.duplicate();
+		payload.limit(offset + RECORD_HEADER_SIZE + length).position(offset + RECORD_HEADER_SIZE);
+		CRC32 crc = new CRC32();
+		crc.update(payload.duplicate());
+		if((int)crc.getValue() != buffer.getInt(offset + 8)){
+			return null;
+		}
+		return payload;
+	}
+
+	@Nullable
+	private static String readKey(@NotNull ByteBuffer buffer, int offset) {
+		ByteBuffer payload = readPayload(buffer, offset);
+		try{
+			return payload != null ? readString(payload) : null;
+		}catch (RuntimeException e){
+			return null;
+		}
+	}
+
+	@Nullable
+	private static Entry readEntry(@NotNull ByteBuffer buffer, int offset) {
+		ByteBuffer payload = readPayload(buffer, offset);
+		if(payload == null){
+			return null;
+		}
+		try{
+			String query = readString(payload);
+			String translatorClass = readString(payload);
+			return new Entry(query, translatorClass, TranslationResultCodec.decode(payload));
+		}catch (IOException | RuntimeException e){
+			return null;
+		}
+	}
+
+	@NotNull
+	private static byte[] encodePayload(@NotNull String key, @NotNull String translatorClass, @NotNull TranslationResult result) {
+		byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+		byte[] translatorBytes = translatorClass.getBytes(StandardCharsets.UTF_8);
+		byte[] record = TranslationResultCodec.encode(result);
+		ByteBuffer payload = ByteBuffer.allocate(10 + keyBytes.length + translatorBytes.length + record.length);
+		TranslationResultCodec.writeVarint(payload, keyBytes.length);
+		payload.put(keyBytes);
+		TranslationResultCodec.writeVarint(payload, translatorBytes.length);
+		payload.put(translatorBytes);
+		payload.put(record);
+		byte[] bytes = new byte[payload.position()];
+		System.arraycopy(payload.array(), 0, bytes, 0, bytes.length);
+		return bytes;
+	}
+
+	@NotNull
+	private static String readString(@NotNull ByteBuffer payload) {
+		int length = TranslationResultCodec.readVarint(payload);
+		byte[] bytes = new byte[length];
+		payload.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	private static int hash(@NotNull String key) {
+		int hash = key.hashCode() * 0x9E3779B9;
+		return hash ^ (hash >>> 16);
+	}
+
+	private static long slotValue(int hash, int offset) {
+		return (long)hash << 32 | (offset & 0xFFFFFFFFL);
+	}
+
+	public static class Entry {
+		private final String myQuery;
+		private final String myTranslatorClass;
+		private final TranslationResult myResult;
+
+		private Entry(@NotNull String query, @NotNull String translatorClass, @NotNull TranslationResult result) {
+			myQuery = query;
+			myTranslatorClass = translatorClass;
+			myResult = result;
+		}
+
+		@NotNull
+		public String getTranslatorClass() {
+			return myTranslatorClass;
+		}
+
+		@NotNull
+		public TranslationResult getResult() {
+			return myResult;
+		}
+	}
+}
@@ -0,0 +1,276 @@
+/*
+ * Copyright 2016 Yuyou Chow
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intellij.translation.cache;
+
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.components.ServiceManager;
+import com.intellij.openapi.util.LowMemoryWatcher;
+import com.intellij.translation.settings.TranslationSettingsSnapshot;
+import com.intellij.translation.translator.TranslationResult;
+import com.intellij.translation.translator.Translator;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * In-memory cache of fetched {@link TranslationResult}s in two tiers: a hot LRU held strongly and bounded by the
+ * estimated size of the results, and a warm tier of soft references the hot tier spills into. Both tiers are dropped
+ * when the IDE reports low memory.
+ * <p>
+ * Besides the exact query, every single-word entry is indexed by its {@link EnglishLemmatizer lemma}, so a miss
+ * on an inflected form can still be answered from a related form. Such hits are {@link Hit#isApproximate() approximate}
+ * and callers are expected to refresh the exact form.
+ */
+public class TranslationCache implements Disposable {
+	/**
+	 * 1 MB of estimated weight, i.e. UTF-16 text at two bytes a char plus per-entry overhead: a few thousand typical
+	 * word lookups, small next to the IDE heap. Anything beyond still gets a chance in the warm tier.
+	 */
+	private static final long HOT_MAX_BYTES = 1024 * 1024;
+	private static final int WARM_MAX_ENTRIES = 4096;
+	/** object headers, map entry and references per cached translation */
+	private static final int ENTRY_OVERHEAD_BYTES = 96;
+
+	private static TranslationCache ourHeadlessInstance;
+
+	private final LinkedHashMap<String, CachedTranslation> myHot = new LinkedHashMap<>(16, 0.75f, true);
+	private final Map<String, WarmReference> myWarm = new LinkedHashMap<>();
+	private final ReferenceQueue<CachedTranslation> myWarmQueue = new ReferenceQueue<>();
+	/** lemma -> key of the most recently stored form */
+	private final Map<String, String> myLemmaIndex = new HashMap<>();
+	private long myHotBytes;
+	/** version of the settings the cached translations were fetched with */
+	private long mySettingsVersion;
+
+	public TranslationCache() {
+		if(ApplicationManager.getApplication() != null){
+			LowMemoryWatcher.register(this::clear, this);
+		}
+	}
+
+	public static TranslationCache getInstance() {
+		if(ApplicationManager.getApplication() == null){
+			synchronized(TranslationCache.class){
+				if(ourHeadlessInstance == null){
+					ourHeadlessInstance = new TranslationCache();
+				}
+				return ourHeadlessInstance;
+			}
+		}
+		return ServiceManager.getService(TranslationCache.class);
+	}
+
+	@Override
+	public void dispose() {
+		clear();
+	}
+
+	@Nullable
+	public synchronized Hit get(@NotNull String query) {
+		checkSettingsVersion();
+		String key = key(query);
+		CachedTranslation cached = lookup(key);
+		if(cached != null){
+			return new Hit(cached, false);
+		}
+
+		String lemma = EnglishLemmatizer.lemmatize(key);
+		String related = lemma != null ? myLemmaIndex.get(lemma) : null;
+		cached = related != null ? lookup(related) : null;
+		return cached != null ? new Hit(cached, true) : null;
+	}
+
+	public synchronized void put(@NotNull String query, @NotNull Translator translator, @NotNull TranslationResult result) {
+		checkSettingsVersion();
+		String key = key(query);
+		CachedTranslation cached = new CachedTranslation(key, EnglishLemmatizer.lemmatize(key), translator, result);
+		myWarm.remove(key);
+		putHot(cached);
+		if(cached.myLemma != null){
+			myLemmaIndex.put(cached.myLemma, key);
+		}
+	}
+
+	public synchronized void clear() {
+		myHot.clear();
+		myHotBytes = 0;
+		myWarm.clear();
+		myLemmaIndex.clear();
+		//noinspection StatementWithEmptyBody
+		while(myWarmQueue.poll() != null);
+	}
+
+	public synchronized int getHotSize() {
+		return myHot.size();
+	}
+
+	/**
+	 * @return estimated bytes held strongly by the hot tier
+	 */
+	public synchronized long getHotBytes() {
+		return myHotBytes;
+	}
+
+	/**
+	 * @return warm entries not yet collected
+	 */
+	public synchronized int getWarmSize() {
+		expungeWarm();
+		return myWarm.size();
+	}
+
+	/**
+	 * Other credentials or another translator may well answer differently, translations fetched before the settings
+	 * changed are dropped.
+	 */
+	private void checkSettingsVersion() {
+		long version = TranslationSettingsSnapshot.current().getVersion();
+		if(version != mySettingsVersion){
+			if(mySettingsVersion != 0){
+				clear();
+			}
+			mySettingsVersion = version;
+		}
+	}
+
+	@Nullable
+	private CachedTranslation lookup(@NotNull String key) {
+		CachedTranslation cached = myHot.get(key);
+		if(cached != null){
+			return cached;
+		}
+
+		WarmReference reference = myWarm.get(key);
+		cached = reference != null ? reference.get() : null;
+		if(cached != null){
+			myWarm.remove(key);
+			putHot(cached);
+		}
+		return cached;
+	}
+
+	private void putHot(@NotNull CachedTranslation cached) {
+		CachedTranslation previous = myHot.put(cached.myQuery, cached);
+		if(previous != null){
+			myHotBytes -= previous.myWeight;
+		}
+		myHotBytes += cached.myWeight;
+
+		Iterator<CachedTranslation> iterator = myHot.values().iterator();
+		while(myHotBytes > HOT_MAX_BYTES && myHot.size() > 1 && iterator.hasNext()){
+			CachedTranslation eldest = iterator.next();
+			iterator.remove();
+			myHotBytes -= eldest.myWeight;
+			putWarm(eldest);
+		}
+	}
+
+	private void putWarm(@NotNull CachedTranslation cached) {
+		expungeWarm();
+		if(myWarm.size() >= WARM_MAX_ENTRIES){
+			Iterator<WarmReference> iterator = myWarm.values().iterator();
+			unindex(iterator.next().myQuery);
+			iterator.remove();
+		}
+		myWarm.put(cached.myQuery, new WarmReference(cached, myWarmQueue));
+	}
+
+	private void expungeWarm() {
+		WarmReference reference;
+		while((reference = (WarmReference)myWarmQueue.poll()) != null){
+			if(myWarm.get(reference.myQuery) == reference){
+				myWarm.remove(reference.myQuery);
+				unindex(reference.myQuery);
+			}
+		}
+	}
+
+	private void unindex(@NotNull String key) {
+		String lemma = EnglishLemmatizer.lemmatize(key);
+		if(lemma != null && key.equals(myLemmaIndex.get(lemma))){
+			myLemmaIndex.remove(lemma);
+		}
+	}
+
+	@NotNull
+	private static String key(@NotNull String query) {
+		return query.trim();
+	}
+
+	private static class CachedTranslation {
+		private final String myQuery;
+		private final String myLemma;
+		private final Translator myTranslator;
+		private final TranslationResult myResult;
+		private final int myWeight;
+
+		private CachedTranslation(@NotNull String query, @Nullable String lemma, @NotNull Translator translator, @NotNull TranslationResult result) {
+			myQuery = query;
+			myLemma = lemma;
+			myTranslator = translator;
+			myResult = result;
+			myWeight = ENTRY_OVERHEAD_BYTES + 2 * query.length() + result.estimateSize();
+		}
+	}
+
+	private static class WarmReference extends SoftReference<CachedTranslation> {
+		private final String myQuery;
+
+		private WarmReference(@NotNull CachedTranslation cached, @NotNull ReferenceQueue<CachedTranslation> queue) {
+			super(cached, queue);
+			myQuery = cached.myQuery;
+		}
+	}
+
+	public static class Hit {
+		private final CachedTranslation myCached;
+		private final boolean myApproximate;
+
+		private Hit(@NotNull CachedTranslation cached, boolean approximate) {
+			myCached = cached;
+			myApproximate = approximate;
+		}
+
+		@NotNull
+		public TranslationResult getResult() {
+			return myCached.myResult;
+		}
+
+		@NotNull
+		public Translator getTranslator() {
+			return myCached.myTranslator;
+		}
+
+		/**
+		 * @return the query the translation was actually fetched for, differs from the requested one for approximate hits
+		 */
+		@NotNull
+		public String getQuery() {
+			return myCached.myQuery;
+		}
+
+		public boolean isApproximate() {
+			return myApproximate;
+		}
+	}
+}
@@ -0,0 +1,293 @@
+/*
+ * Copyright 2016 Yuyou Chow
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intellij.translation.cache;
+
+import com.intellij.translation.translator.TranslationResult;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Binary form of a {@link TranslationResult} for storing it on disk or sharing it between processes.
+ * <pre>
+ * record  := version:u8 flags:u8 varint(bodyLength) [varint(rawLength) if compressed] body
+ * body    := varint(stringCount) (varint(utf8Length) utf8)* zigzag(errorCode)
+ *            query:ref errorMessage:ref? phonetic:ref? usPhonetic:ref? ukPhonetic:ref? html:ref?
+ *            varint(n) translation:ref* varint(n) explain:ref* varint(n) (key:ref varint(m) value:ref*)*
+ * ref     := varint index into the string table, optional refs are stored as index + 1 with 0 for null
+ * </pre>
+ * Every distinct string is written once, web entries repeat the query and each other a lot. Bodies above
+ * {@link #COMPRESSION_THRESHOLD} bytes are compressed with {@link BlockCompressor} when that makes them smaller.
+ */
+public class TranslationResultCodec {
+	public static final int VERSION = 1;
+
+	private static final int FLAG_COMPRESSED = 1;
+	private static final int COMPRESSION_THRESHOLD = 256;
+
+	private TranslationResultCodec() {
+	}
+
+	@NotNull
+	public static byte[] encode(@NotNull TranslationResult result) {
+		return encode(result, true);
+	}
+
+	@NotNull
+	public static byte[] encode(@NotNull TranslationResult result, boolean compress) {
+		Writer writer = new Writer();
+		writer.writeBody(result);
+		byte[] body = writer.myBytes;
+		int bodyLength = writer.myLength;
+
+		int flags = 0;
+		int rawLength = bodyLength;
+		if(compress && bodyLength > COMPRESSION_THRESHOLD){
+			byte[] compressed = BlockCompressor.compress(body, bodyLength);
+			if(compressed.length < bodyLength){
+				flags |= FLAG_COMPRESSED;
+				body = compressed;
+				bodyLength = compressed.length;
+			}
+		}
+
+		ByteBuffer record = ByteBuffer.allocate(2 + 5 + 5 + bodyLength);
+		record.put((byte)VERSION).put((byte)flags);
+		writeVarint(record, bodyLength);
+		if((flags & FLAG_COMPRESSED) != 0){
+			writeVarint(record, rawLength);
+		}
+		record.put(body, 0, bodyLength);
+		return Arrays.copyOf(record.array(), record.position());
+	}
+
+	/**
+	 * Reads a record starting at the buffer's position and leaves the position right after it. Strings are decoded
+	 * straight from the buffer, only compressed bodies are copied out first.
+	 */
+	@NotNull
+	public static TranslationResult decode(@NotNull ByteBuffer buffer) throws IOException {
+		try{
+			int version = buffer.get() & 0xFF;
+			if(version != VERSION){
+				throw new IOException("Unsupported translation record version " + version);
+			}
+			int flags = buffer.get() & 0xFF;
+			int bodyLength = readVarint(buffer);
+			if(bodyLength < 0 || bodyLength > buffer.remaining()){
+				throw new IOException("Truncated translation record");
+			}
+
+			if((flags & FLAG_COMPRESSED) != 0){
+				int rawLength = readVarint(buffer);
+				byte[] raw = BlockCompressor.decompress(buffer, bodyLength, rawLength);
+				return readBody(ByteBuffer.wrap(raw));
+			}
+
+			ByteBuffer body = buffer.slice();
+			body.limit(bodyLength);
+			buffer.position(buffer.position() + bodyLength);
+			return readBody(body);
+		}catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException e){
+			throw new IOException("Malformed translation record", e);
+		}
+	}
+
+	@NotNull
+	private static TranslationResult readBody(@NotNull ByteBuffer body) throws IOException {
+		String[] strings = new String[readCount(body)];
+		for(int i = 0; i < strings.length; i++){
+			strings[i] = readString(body);
+		}
+
+		int errorCode = readZigzag(body);
+		String query = strings[readVarint(body)];
+		String errorMessage = readOptional(body, strings);
+		String phonetic = readOptional(body, strings);
+		String usPhonetic = readOptional(body, strings);
+		String ukPhonetic = readOptional(body, strings);
+		String html = readOptional(body, strings);
+		List<String> translations = readList(body, strings);
+		List<String> explains = readList(body, strings);
+
+		int webCount = readCount(body);
+		List<TranslationResult.WebEntry> webEntries = webCount == 0 ? Collections.emptyList() : new ArrayList<>(webCount);
+		for(int i = 0; i < webCount; i++){
+			String key = strings[readVarint(body)];
+			webEntries.add(new TranslationResult.WebEntry(key, readList(body, strings)));
+		}
+
+		if(html != null){
+			return TranslationResult.html(query, html);
+		}
+		return new TranslationResult(query, errorCode, errorMessage, translations, phonetic, usPhonetic, ukPhonetic, explains, webEntries);
+	}
+
+	@Nullable
+	private static String readOptional(ByteBuffer body, String[] strings) {
+		int ref = readVarint(body);
+		return ref == 0 ? null : strings[ref - 1];
+	}
+
+	@NotNull
+	private static List<String> readList(ByteBuffer body, String[] strings) throws IOException {
+		int count = readCount(body);
+		if(count == 0){
+			return Collections.emptyList();
+		}
+		List<String> values = new ArrayList<>(count);
+		for(int i = 0; i < count; i++){
+			values.add(strings[readVarint(body)]);
+		}
+		return values;
+	}
+
+	/**
+	 * Every counted item takes at least a byte, a larger count can only come from a damaged record.
+	 */
+	private static int readCount(ByteBuffer body) throws IOException {
+		int count = readVarint(body);
+		if(count < 0 || count > body.remaining()){
+			throw new IOException("Invalid item count " + count);
+		}
+		return count;
+	}
+
+	@NotNull
+	private static String readString(ByteBuffer body) throws IOException {
+		int length = readVarint(body);
+		if(length < 0 || length > body.remaining()){
+			throw new IOException("Truncated string");
+		}
+		String value;
+		if(body.hasArray()){
+			value = new String(body.array(), body.arrayOffset() + body.position(), length, StandardCharsets.UTF_8);
+			body.position(body.position() + length);
+		}else{
+			byte[] bytes = new byte[length];
+			body.get(bytes);
+			value = new String(bytes, StandardCharsets.UTF_8);
+		}
+		return value;
+	}
+
+	static void writeVarint(@NotNull ByteBuffer buffer, int value) {
+		while((value & ~0x7F) != 0){
+			buffer.put((byte)((value & 0x7F) | 0x80));
+			value >>>= 7;
+		}
+		buffer.put((byte)value);
+	}
+
+	static int readVarint(@NotNull ByteBuffer buffer) {
+		int value = 0;
+		for(int shift = 0; shift < 35; shift += 7){
+			int b = buffer.get();
+			value |= (b & 0x7F) << shift;
+			if((b & 0x80) == 0){
+				return value;
+			}
+		}
+		throw new IllegalArgumentException("Varint too long");
+	}
+
+	private static int readZigzag(ByteBuffer buffer) {
+		int value = readVarint(buffer);
+		return (value >>> 1) ^ -(value & 1);
+	}
+
+	/**
+	 * Collects the string table while writing the refs to a growable scratch buffer.
+	 */
+	private static class Writer {
+		private final Map<String, Integer> myIndex = new HashMap<>();
+		private final List<String> myStrings = new ArrayList<>();
+		private ByteBuffer myRefs = ByteBuffer.allocate(64);
+		private byte[] myBytes;
+		private int myLength;
+
+		private void writeBody(@NotNull TranslationResult result) {
+			writeVarint((result.getErrorCode() << 1) ^ (result.getErrorCode() >> 31));
+			writeVarint(ref(result.getQuery()));
+			writeOptional(result.getErrorMessage());
+			writeOptional(result.getPhonetic());
+			writeOptional(result.getUsPhonetic());
+			writeOptional(result.getUkPhonetic());
+			writeOptional(result.getHtml());
+			writeList(result.getTranslations());
+			writeList(result.getExplains());
+			writeVarint(result.getWebEntries().size());
+			for(TranslationResult.WebEntry entry : result.getWebEntries()){
+				writeVarint(ref(entry.getKey()));
+				writeList(entry.getValues());
+			}
+
+			byte[][] encoded = new byte[myStrings.size()][];
+			int tableLength = 5;
+			for(int i = 0; i < encoded.length; i++){
+				encoded[i] = myStrings.get(i).getBytes(StandardCharsets.UTF_8);
+				tableLength += 5 + encoded[i].length;
+			}
+			ByteBuffer body = ByteBuffer.allocate(tableLength + myRefs.position());
+			TranslationResultCodec.writeVarint(body, encoded.length);
+			for(byte[] string : encoded){
+				TranslationResultCodec.writeVarint(body, string.length);
+				body.put(string);
+			}
+			body.put(myRefs.array(), 0, myRefs.position());
+			myBytes = body.array();
+			myLength = body.position();
+		}
+
+		private int ref(@NotNull String value) {
+			Integer index = myIndex.get(value);
+			if(index == null){
+				index = myStrings.size();
+				myIndex.put(value, index);
+				myStrings.add(value);
+			}
+			return index;
+		}
+
+		private void writeOptional(@Nullable String value) {
+			writeVarint(value == null ? 0 : ref(value) + 1);
+		}
+
+		private void writeList(@NotNull List<String> values) {
+			writeVarint(values.size());
+			for(String value : values){
+				writeVarint(ref(value));
+			}
+		}
+
+		private void writeVarint(int value) {
+			if(myRefs.remaining() < 5){
+				myRefs = ByteBuffer.allocate(myRefs.capacity() * 2).put((ByteBuffer)myRefs.flip());
+			}
+			TranslationResultCodec.writeVarint(myRefs, value);
+		}
+	}
+}
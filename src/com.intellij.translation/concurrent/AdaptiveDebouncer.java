@@ -0,0 +1,50 @@
+/*
+ * Copyright 2016 Yuyou Chow
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intellij.translation.concurrent;
+
+/**
+ * Debounce delay that doubles while events keep arriving within {@code changingWindow} of each other
+ * (e.g. the user is drag-selecting) and drops back to the minimum once they stop.
+ */
+public class AdaptiveDebouncer {
+	private final int myMinDelay;
+	private final int myMaxDelay;
+	private final int myChangingWindow;
+
+	private long myLastEventTime;
+	private int myDelay;
+
+	public AdaptiveDebouncer(int minDelay, int maxDelay, int changingWindow) {
+		myMinDelay = minDelay;
+		myMaxDelay = maxDelay;
+		myChangingWindow = changingWindow;
+		myDelay = minDelay;
+	}
+
+	/**
+	 * Registers an event and returns the delay to wait before acting on it.
+	 */
+	public synchronized int nextDelay() {
+		long now = System.currentTimeMillis();
+		if(myLastEventTime != 0 && now - myLastEventTime < myChangingWindow){
+			myDelay = Math.min(myMaxDelay, myDelay * 2);
+		}else{
+			myDelay = myMinDelay;
+		}
+		myLastEventTime = now;
+		return myDelay;
+	}
+}
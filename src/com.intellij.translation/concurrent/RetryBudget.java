@@ -0,0 +1,58 @@
+/*
+ * Copyright 2016 Yuyou Chow
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intellij.translation.concurrent;
+
+/**
+ * Limits retries to a share of the requests, across all translators: every request earns {@code ratio} of a retry,
+ * every retry spends a whole one. While a translator is down most of its requests fail, and without a budget each
+ * of them would be sent several times, multiplying the load right when it is least welcome.
+ * <p>
+ * The balance starts full, so an occasional failure can always be retried.
+ */
+public class RetryBudget {
+	private final double myRatio;
+	private final double myCapacity;
+	private double myBalance;
+
+	/**
+	 * @param ratio    retries allowed per request in the long run
+	 * @param capacity retries that can be saved up for a burst of failures
+	 */
+	public RetryBudget(double ratio, int capacity) {
+		myRatio = ratio;
+		myCapacity = capacity;
+		myBalance = capacity;
+	}
+
+	public synchronized void recordRequest() {
+		myBalance = Math.min(myCapacity, myBalance + myRatio);
+	}
+
+	/**
+	 * @return <code>true</code> if a retry may be sent, it is then paid for
+	 */
+	public synchronized boolean tryAcquire() {
+		if(myBalance < 1){
+			return false;
+		}
+		myBalance -= 1;
+		return true;
+	}
+
+	public synchronized double getBalance() {
+		return myBalance;
+	}
+}
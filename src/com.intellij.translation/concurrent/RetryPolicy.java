@@ -0,0 +1,77 @@
+/*
+ * Copyright 2016 Yuyou Chow
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intellij.translation.concurrent;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * How often and how long apart a failed request is tried again: exponential backoff with full jitter, so clients that
+ * failed together do not come back together, bounded by the number of attempts, the caller's deadline and a shared
+ * {@link RetryBudget}.
+ * <p>
+ * Which failures are worth a retry is up to the caller; this only answers when.
+ */
+public class RetryPolicy {
+	/** an attempt with less time than this left before the deadline would only time out */
+	private static final long MIN_ATTEMPT_MILLIS = 200;
+
+	private final int myMaxAttempts;
+	private final long myBaseDelay;
+	private final long myMaxDelay;
+	private final RetryBudget myBudget;
+
+	/**
+	 * @param maxAttempts attempts including the first one
+	 * @param baseDelay   upper bound of the first backoff in milliseconds, doubled for each further one
+	 * @param maxDelay    upper bound of any backoff in milliseconds
+	 */
+	public RetryPolicy(int maxAttempts, long baseDelay, long maxDelay, @NotNull RetryBudget budget) {
+		myMaxAttempts = maxAttempts;
+		myBaseDelay = baseDelay;
+		myMaxDelay = maxDelay;
+		myBudget = budget;
+	}
+
+	public int getMaxAttempts() {
+		return myMaxAttempts;
+	}
+
+	@NotNull
+	public RetryBudget getBudget() {
+		return myBudget;
+	}
+
+	/**
+	 * Full jitter: uniformly random between zero and the exponential backoff for the given attempt.
+	 *
+	 * @param attempt the attempt that just failed, starting at 1
+	 */
+	public long getBackoffMillis(int attempt) {
+		long ceiling = myBaseDelay << Math.min(attempt - 1, 20);
+		return ThreadLocalRandom.current().nextLong(Math.min(ceiling, myMaxDelay) + 1);
+	}
+
+	/**
+	 * @return whether an attempt started after {@code delayMillis} still has time to complete before the deadline
+	 */
+	public boolean fitsDeadline(long delayMillis, long deadlineNanos) {
+		long remaining = TimeUnit.NANOSECONDS.toMillis(deadlineNanos - System.nanoTime());
+		return delayMillis + MIN_ATTEMPT_MILLIS <= remaining;
+	}
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright 2016 Yuyou Chow
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intellij.translation.concurrent;
+
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.diagnostic.Logger;
+import org.jetbrains.annotations.NonNls;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Threads used by the translation pipeline.
+ *
+ * When the IDE runs on a JDK with virtual threads, every request gets its own virtual thread so that
+ * blocking translators stay cheap; otherwise the platform pool is used. The plugin is compiled for Java 8,
+ * hence the reflective lookup. Set <code>-Dtranslation.virtual.threads=false</code> to opt out.
+ */
+public class TranslationThreads {
+	private static final Logger LOG = Logger.getInstance("#" + TranslationThreads.class.getName());
+
+	@NonNls private static final String VIRTUAL_THREADS_PROPERTY = "translation.virtual.threads";
+
+	private static final boolean ourVirtualThreadsAvailable = Boolean.parseBoolean(System.getProperty(VIRTUAL_THREADS_PROPERTY, "true")) &&
+		createVirtualThreadFactory("Translation probe") != null;
+
+	private static final ThreadFactory ourPipelineThreadFactory = newThreadFactory("pipeline");
+
+	/** only fires timeouts, the work they trigger is handed on right away */
+	private static final ScheduledExecutorService ourTimer = Executors.newSingleThreadScheduledExecutor(new PlatformThreadFactory("Translation timer #"));
+
+	private TranslationThreads() {
+	}
+
+	public static boolean isVirtualThreadsAvailable() {
+		return ourVirtualThreadsAvailable;
+	}
+
+	/**
+	 * Runs a pipeline task on a fresh virtual thread, or on the application pool when virtual threads are unavailable.
+	 */
+	public static void execute(@NotNull Runnable task) {
+		if(ourVirtualThreadsAvailable || ApplicationManager.getApplication() == null){
+			ourPipelineThreadFactory.newThread(task).start();
+		}else{
+			ApplicationManager.getApplication().executeOnPooledThread(task);
+		}
+	}
+
+	/**
+	 * Runs a short task after the delay, e.g. to give up waiting for a translator.
+	 */
+	@NotNull
+	public static ScheduledFuture<?> schedule(@NotNull Runnable task, long delayMs) {
+		return ourTimer.schedule(task, delayMs, TimeUnit.MILLISECONDS);
+	}
+
+	@NotNull
+	public static ThreadFactory newThreadFactory(@NotNull String name) {
+		if(ourVirtualThreadsAvailable){
+			ThreadFactory factory = createVirtualThreadFactory("Translation " + name + " #");
+			if(factory != null){
+				return factory;
+			}
+		}
+		return new PlatformThreadFactory("Translation " + name + " #");
+	}
+
+	@Nullable
+	private static ThreadFactory createVirtualThreadFactory(@NotNull String prefix) {
+		try{
+			Method ofVirtual = Thread.class.getMethod("ofVirtual");
+			Object builder = ofVirtual.invoke(null);
+			Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+			builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, prefix, 1L);
+			return (ThreadFactory)builderClass.getMethod("factory").invoke(builder);
+		}catch (Throwable e){
+			LOG.debug("Virtual threads are not available: " + e);
+			return null;
+		}
+	}
+
+	private static class PlatformThreadFactory implements ThreadFactory {
+		private final String myPrefix;
+		private final AtomicInteger myCounter = new AtomicInteger();
+
+		private PlatformThreadFactory(String prefix) {
+			myPrefix = prefix;
+		}
+
+		@Override
+		public Thread newThread(@NotNull Runnable r) {
+			Thread thread = new Thread(r, myPrefix + myCounter.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2016 Yuyou Chow
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intellij.translation.concurrent;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded executor owned by a single translator, so that a slow or hanging provider
+ * can only exhaust its own threads and queue.
+ * <p>
+ * With virtual threads every task gets a thread of its own and only the number of running tasks is limited,
+ * so that glossary-sized fan-outs are not turned away by a pool sized for platform threads.
+ */
+public class TranslatorBulkhead {
+	private final String myName;
+	private final ThreadPoolExecutor myExecutor;
+	private final ThreadFactory myVirtualThreadFactory;
+	private final Semaphore myVirtualPermits;
+	private final int myVirtualConcurrency;
+	private final LongAdder myRejectedCount = new LongAdder();
+
+	TranslatorBulkhead(@NotNull String name, int threads, int queueCapacity) {
+		myName = name;
+		myExecutor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+			new ArrayBlockingQueue<>(queueCapacity), TranslationThreads.newThreadFactory(name), (r, executor) -> {
+				myRejectedCount.increment();
+				throw new RejectedExecutionException("Translator bulkhead '" + myName + "' is full");
+			});
+		myExecutor.allowCoreThreadTimeOut(true);
+		myVirtualThreadFactory = null;
+		myVirtualPermits = null;
+		myVirtualConcurrency = 0;
+	}
+
+	/**
+	 * Runs each task on a new thread of the factory, at most <code>concurrency</code> at a time.
+	 */
+	TranslatorBulkhead(@NotNull String name, @NotNull ThreadFactory virtualThreadFactory, int concurrency) {
+		myName = name;
+		myExecutor = null;
+		myVirtualThreadFactory = virtualThreadFactory;
+		myVirtualPermits = new Semaphore(concurrency);
+		myVirtualConcurrency = concurrency;
+	}
+
+	@NotNull
+	public String getName() {
+		return myName;
+	}
+
+	@NotNull
+	public <T> Future<T> submit(@NotNull Callable<T> task) throws RejectedExecutionException {
+		if(myExecutor != null){
+			return myExecutor.submit(task);
+		}
+
+		if(!myVirtualPermits.tryAcquire()){
+			myRejectedCount.increment();
+			throw new RejectedExecutionException("Translator bulkhead '" + myName + "' is full");
+		}
+		FutureTask<T> future = new FutureTask<>(task);
+		try{
+			// released when the thread is done rather than when the future is, a cancelled task may still be running
+			myVirtualThreadFactory.newThread(() -> {
+				try{
+					future.run();
+				}finally {
+					myVirtualPermits.release();
+				}
+			}).start();
+		}catch (RuntimeException | Error e){
+			myVirtualPermits.release();
+			throw e;
+		}
+		return future;
+	}
+
+	public int getQueueDepth() {
+		return myExecutor != null ? myExecutor.getQueue().size() : 0;
+	}
+
+	public int getActiveCount() {
+		return myExecutor != null ? myExecutor.getActiveCount() : myVirtualConcurrency - myVirtualPermits.availablePermits();
+	}
+
+	public long getRejectedCount() {
+		return myRejectedCount.sum();
+	}
+}
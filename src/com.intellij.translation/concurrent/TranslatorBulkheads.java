@@ -0,0 +1,127 @@
+/*
+ * Copyright 2016 Yuyou Chow
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intellij.translation.concurrent;
+
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.translation.diagnostic.TranslationMetrics;
+import com.intellij.translation.diagnostic.TranslationTrace;
+import com.intellij.translation.diagnostic.TranslationTracer;
+import com.intellij.translation.diagnostic.TranslatorMetrics;
+import com.intellij.translation.translator.TranslationResult;
+import com.intellij.translation.translator.Translator;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.*;
+
+import static com.intellij.translation.TranslationConstants.TRANSLATOR_QUEUE_CAPACITY;
+import static com.intellij.translation.TranslationConstants.TRANSLATOR_THREADS;
+import static com.intellij.translation.TranslationConstants.TRANSLATOR_TIMEOUT;
+import static com.intellij.translation.TranslationConstants.TRANSLATOR_VIRTUAL_CONCURRENCY;
+
+/**
+ * Registry of {@link TranslatorBulkhead}s, one per registered translator.
+ */
+public class TranslatorBulkheads {
+	private static final Logger LOG = Logger.getInstance("#" + TranslatorBulkheads.class.getName());
+
+	private static final ConcurrentMap<String, TranslatorBulkhead> ourBulkheads = new ConcurrentHashMap<>();
+	/** deadline of the fetch the current bulkhead thread is running, in {@link System#nanoTime()} */
+	private static final ThreadLocal<Long> ourDeadline = new ThreadLocal<>();
+
+	private TranslatorBulkheads() {
+	}
+
+	@NotNull
+	public static TranslatorBulkhead getBulkhead(@NotNull Translator translator) {
+		String name = translator.getClass().getSimpleName();
+		return ourBulkheads.computeIfAbsent(translator.getClass().getName(), key -> TranslationThreads.isVirtualThreadsAvailable()
+			? new TranslatorBulkhead(name, TranslationThreads.newThreadFactory(name), TRANSLATOR_VIRTUAL_CONCURRENCY)
+			: new TranslatorBulkhead(name, TRANSLATOR_THREADS, TRANSLATOR_QUEUE_CAPACITY));
+	}
+
+	@NotNull
+	public static Collection<TranslatorBulkhead> getBulkheads() {
+		return Collections.unmodifiableCollection(ourBulkheads.values());
+	}
+
+	/**
+	 * Fetches the translation on the translator's bulkhead, recording the outcome in {@link TranslationMetrics}.
+	 * The calling thread does not wait: the future is completed by the bulkhead thread, or with <code>null</code>
+	 * once {@link com.intellij.translation.TranslationConstants#TRANSLATOR_TIMEOUT} has passed.
+	 *
+	 * @return the translation, or <code>null</code> if there is none, the bulkhead is full or the translator timed out
+	 */
+	@NotNull
+	public static CompletableFuture<TranslationResult> fetchResult(@NotNull Translator translator, @NotNull String query) {
+		TranslatorBulkhead bulkhead = getBulkhead(translator);
+		TranslatorMetrics metrics = TranslationMetrics.forTranslator(translator);
+		long start = System.nanoTime();
+		long deadline = start + TimeUnit.MILLISECONDS.toNanos(TRANSLATOR_TIMEOUT);
+		TranslationTrace trace = TranslationTracer.current();
+		CompletableFuture<TranslationResult> result = new CompletableFuture<>();
+		Future<?> future;
+		try{
+			future = bulkhead.submit(() -> {
+				if(result.isDone()) return null; // the caller gave up while the task was queued
+				TranslationTracer.attach(trace);
+				ourDeadline.set(deadline);
+				try{
+					TranslationResult translation = translator.fetchResult(query);
+					if(result.complete(translation)){
+						metrics.recordRequest(System.nanoTime() - start);
+					}
+				}catch (Throwable e){
+					if(result.completeExceptionally(e)){
+						metrics.recordRequest(System.nanoTime() - start);
+						metrics.recordError(e.getClass().getSimpleName());
+					}
+				}finally {
+					ourDeadline.remove();
+					TranslationTracer.attach(null);
+				}
+				return null;
+			});
+		}catch (RejectedExecutionException e){
+			// counted by the bulkhead itself, see TranslatorBulkhead#getRejectedCount
+			LOG.debug(e.getMessage());
+			result.complete(null);
+			return result;
+		}
+
+		ScheduledFuture<?> timeout = TranslationThreads.schedule(() -> {
+			if(result.complete(null)){
+				future.cancel(true);
+				LOG.debug("Translator '" + bulkhead.getName() + "' timed out after " + TRANSLATOR_TIMEOUT + "ms");
+				metrics.recordRequest(System.nanoTime() - start);
+				metrics.recordTimeout();
+			}
+		}, TRANSLATOR_TIMEOUT);
+		result.whenComplete((translation, e) -> timeout.cancel(false));
+		return result;
+	}
+
+	/**
+	 * @return when the fetch running on the current thread is given up, in {@link System#nanoTime()}; counted from
+	 * when the caller asked rather than from when the bulkhead got to it. Off a bulkhead, e.g. in the command line
+	 * tool, the full {@link com.intellij.translation.TranslationConstants#TRANSLATOR_TIMEOUT} from now.
+	 */
+	public static long getDeadline() {
+		Long deadline = ourDeadline.get();
+		return deadline != null ? deadline : System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(TRANSLATOR_TIMEOUT);
+	}
+}
@@ -0,0 +1,179 @@
+/*
+ * Copyright 2016 Yuyou Chow
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intellij.translation.detect;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Cheap local guess of what a query is written in, run before anything is sent over the network.
+ * Works on the characters in place: character classes decide the script, and for Latin text the share of
+ * plausible English letter pairs tells words apart from hashes, identifiers' noise and other junk.
+ */
+public class LanguageDetector {
+	public enum Language {
+		/** Numbers, hashes, links and similar, not worth a request */
+		NONE,
+		ENGLISH,
+		CHINESE,
+		JAPANESE,
+		KOREAN,
+		OTHER
+	}
+
+	private static final int MIN_BIGRAMS = 4;
+	private static final double MIN_BIGRAM_SCORE = 0.5;
+	private static final int MIN_HASH_LENGTH = 7;
+
+	private static final String COMMON_CONSONANT_PAIRS =
+		"th sh ch ck ng nd nt nc nk ns st sp sc sk sm sn sw tr pr pl br bl cr cl dr fr fl gr gl tw wh ph gh " +
+		"rt rd rs rn rm rk rl rc rg rb rp lt ld ll ls lm lk lf lp mp mb ss tt ff pp mm nn rr dd gg bb cc ct pt ft " +
+		"wn ws wl ts ds ks ps ms gs bs xt nf ht lv rv sl gn mn dg tch nl";
+
+	private static final boolean[] ourPlausiblePairs = new boolean[26 * 26];
+
+	static {
+		for(char first = 'a'; first <= 'z'; first++){
+			for(char second = 'a'; second <= 'z'; second++){
+				if(isVowel(first) || isVowel(second)){
+					ourPlausiblePairs[(first - 'a') * 26 + second - 'a'] = true;
+				}
+			}
+		}
+		for(String pair : COMMON_CONSONANT_PAIRS.split(" ")){
+			for(int i = 0; i + 1 < pair.length(); i++){
+				ourPlausiblePairs[(pair.charAt(i) - 'a') * 26 + pair.charAt(i + 1) - 'a'] = true;
+			}
+		}
+	}
+
+	private LanguageDetector() {
+	}
+
+	@NotNull
+	public static Language detect(@NotNull CharSequence text) {
+		int length = text.length();
+		if(isLink(text)){
+			return Language.NONE;
+		}
+
+		int han = 0, kana = 0, hangul = 0, latin = 0, otherLetters = 0, digits = 0, nonHex = 0;
+		int bigrams = 0, plausibleBigrams = 0;
+		int previous = -1;
+		for(int i = 0; i < length; i++){
+			char c = text.charAt(i);
+			int letter = -1;
+			if(c >= 'a' && c <= 'z'){
+				letter = c - 'a';
+			}else if(c >= 'A' && c <= 'Z'){
+				letter = c - 'A';
+			}
+
+			if(letter >= 0){
+				latin++;
+				if(letter > 'f' - 'a'){
+					nonHex++;
+				}
+				if(previous >= 0){
+					bigrams++;
+					if(ourPlausiblePairs[previous * 26 + letter]){
+						plausibleBigrams++;
+					}
+				}
+				previous = letter;
+				continue;
+			}
+			previous = -1;
+
+			if(c >= '0' && c <= '9'){
+				digits++;
+			}else if(isHan(c)){
+				han++;
+			}else if(c >= '\u3040' && c <= '\u30ff'){
+				kana++;
+			}else if(c >= '\uac00' && c <= '\ud7af'){
+				hangul++;
+			}else if(c > '\u007f' && Character.isLetter(c)){
+				otherLetters++;
+			}
+		}
+
+		if(kana > 0){
+			return Language.JAPANESE;
+		}
+		if(hangul > 0){
+			return Language.KOREAN;
+		}
+		// a single ideograph carries about as much as a short English word
+		if(han > 0 && han * 2 >= latin){
+			return Language.CHINESE;
+		}
+		if(otherLetters > latin){
+			return Language.OTHER;
+		}
+		if(latin == 0 || digits >= latin){
+			return Language.NONE;
+		}
+		if(digits > 0 && nonHex == 0 && latin + digits >= MIN_HASH_LENGTH){
+			return Language.NONE;
+		}
+		if(bigrams >= MIN_BIGRAMS && plausibleBigrams < bigrams * MIN_BIGRAM_SCORE){
+			return Language.NONE;
+		}
+		return Language.ENGLISH;
+	}
+
+	public static boolean isTranslatable(@NotNull CharSequence text) {
+		return detect(text) != Language.NONE;
+	}
+
+	private static boolean isLink(CharSequence text) {
+		int start = 0;
+		while(start < text.length() && Character.isWhitespace(text.charAt(start))){
+			start++;
+		}
+		if(regionMatches(text, start, "www.")){
+			return true;
+		}
+		// "scheme://" near the start
+		int limit = Math.min(text.length() - 2, start + 12);
+		for(int i = start + 1; i < limit; i++){
+			if(text.charAt(i) == ':' && text.charAt(i + 1) == '/' && text.charAt(i + 2) == '/'){
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static boolean regionMatches(CharSequence text, int offset, String prefix) {
+		if(offset + prefix.length() > text.length()){
+			return false;
+		}
+		for(int i = 0; i < prefix.length(); i++){
+			if(Character.toLowerCase(text.charAt(offset + i)) != prefix.charAt(i)){
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static boolean isHan(char c) {
+		return (c >= '\u4e00' && c <= '\u9fff') || (c >= '\u3400' && c <= '\u4dbf') || (c >= '\uf900' && c <= '\ufaff');
+	}
+
+	private static boolean isVowel(char c) {
+		return c == 'a' || c == 'e' || c == 'i' || c == 'o' || c == 'u' || c == 'y';
+	}
+}
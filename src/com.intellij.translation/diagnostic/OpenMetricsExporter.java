@@ -0,0 +1,157 @@
+/*
+ * Copyright 2016 Yuyou Chow
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intellij.translation.diagnostic;
+
+import com.intellij.translation.cache.TranslationCache;
+import com.intellij.translation.concurrent.TranslatorBulkhead;
+import com.intellij.translation.concurrent.TranslatorBulkheads;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Map;
+
+/**
+ * Snapshot of {@link TranslationMetrics}, bulkheads, trace stages and the cache in the OpenMetrics text format.
+ */
+public class OpenMetricsExporter {
+	private static final long[] LATENCY_BOUNDS_MICROS = {
+		1000, 5000, 10000, 25000, 50000, 100000, 250000, 500000, 1000000, 2500000, 5000000, 10000000
+	};
+
+	private final StringBuilder myBuilder = new StringBuilder();
+
+	private OpenMetricsExporter() {
+	}
+
+	@NotNull
+	public static String export() {
+		OpenMetricsExporter exporter = new OpenMetricsExporter();
+		exporter.exportTranslators();
+		exporter.exportBulkheads();
+		exporter.exportStages();
+		exporter.exportPopup();
+		exporter.exportCache();
+		return exporter.myBuilder.append("# EOF\n").toString();
+	}
+
+	private void exportTranslators() {
+		type("translation_requests", "counter", "Requests sent to a translator");
+		for(TranslatorMetrics metrics : TranslationMetrics.getAll()){
+			sample("translation_requests_total", label("translator", metrics.getName()), metrics.getRequests());
+		}
+		type("translation_cache_hits", "counter", "Translations served from cache");
+		for(TranslatorMetrics metrics : TranslationMetrics.getAll()){
+			sample("translation_cache_hits_total", label("translator", metrics.getName()), metrics.getCacheHits());
+		}
+		type("translation_cache_misses", "counter", "Cache lookups that went to the translator");
+		for(TranslatorMetrics metrics : TranslationMetrics.getAll()){
+			sample("translation_cache_misses_total", label("translator", metrics.getName()), metrics.getCacheMisses());
+		}
+		type("translation_timeouts", "counter", "Requests abandoned after the translator timeout");
+		for(TranslatorMetrics metrics : TranslationMetrics.getAll()){
+			sample("translation_timeouts_total", label("translator", metrics.getName()), metrics.getTimeouts());
+		}
+		type("translation_response_bytes", "counter", "Response body bytes as received and after decompression");
+		for(TranslatorMetrics metrics : TranslationMetrics.getAll()){
+			sample("translation_response_bytes_total", label("translator", metrics.getName()) + "," + label("encoding", "wire"), metrics.getWireBytes());
+			sample("translation_response_bytes_total", label("translator", metrics.getName()) + "," + label("encoding", "decoded"), metrics.getDecodedBytes());
+		}
+		type("translation_retries", "counter", "Requests sent again after a retryable failure");
+		for(TranslatorMetrics metrics : TranslationMetrics.getAll()){
+			sample("translation_retries_total", label("translator", metrics.getName()), metrics.getRetries());
+		}
+		type("translation_retry_recoveries", "counter", "Requests that succeeded after a retry");
+		for(TranslatorMetrics metrics : TranslationMetrics.getAll()){
+			sample("translation_retry_recoveries_total", label("translator", metrics.getName()), metrics.getRetryRecoveries());
+		}
+		type("translation_retries_abandoned", "counter", "Retryable failures given up on, by reason");
+		for(TranslatorMetrics metrics : TranslationMetrics.getAll()){
+			for(Map.Entry<String, Long> reason : metrics.getRetriesAbandoned().entrySet()){
+				sample("translation_retries_abandoned_total", label("translator", metrics.getName()) + "," + label("reason", reason.getKey()), reason.getValue());
+			}
+		}
+		type("translation_errors", "counter", "Failed requests by error code");
+		for(TranslatorMetrics metrics : TranslationMetrics.getAll()){
+			for(Map.Entry<String, Long> error : metrics.getErrors().entrySet()){
+				sample("translation_errors_total", label("translator", metrics.getName()) + "," + label("code", error.getKey()), error.getValue());
+			}
+		}
+		type("translation_latency_seconds", "histogram", "Translator request latency");
+		for(TranslatorMetrics metrics : TranslationMetrics.getAll()){
+			histogram("translation_latency_seconds", label("translator", metrics.getName()), metrics.getLatency());
+		}
+	}
+
+	private void exportBulkheads() {
+		type("translation_bulkhead_queue_depth", "gauge", "Requests waiting for a translator thread");
+		for(TranslatorBulkhead bulkhead : TranslatorBulkheads.getBulkheads()){
+			sample("translation_bulkhead_queue_depth", label("translator", bulkhead.getName()), bulkhead.getQueueDepth());
+		}
+		type("translation_bulkhead_rejections", "counter", "Requests rejected by a full bulkhead");
+		for(TranslatorBulkhead bulkhead : TranslatorBulkheads.getBulkheads()){
+			sample("translation_bulkhead_rejections_total", label("translator", bulkhead.getName()), bulkhead.getRejectedCount());
+		}
+	}
+
+	private void exportStages() {
+		type("translation_stage_seconds", "histogram", "Time spent in each translation stage");
+		for(Map.Entry<TraceStage, LatencyHistogram> entry : TranslationTracer.getStageHistograms().entrySet()){
+			histogram("translation_stage_seconds", label("stage", entry.getKey().getId()), entry.getValue());
+		}
+	}
+
+	private void exportPopup() {
+		type("translation_popup_first_paint_seconds", "histogram", "Time from Quick Translate to the first painted popup content");
+		histogram("translation_popup_first_paint_seconds", label("component", "pooled"), TranslationMetrics.getPopupFirstPaint(true));
+		histogram("translation_popup_first_paint_seconds", label("component", "new"), TranslationMetrics.getPopupFirstPaint(false));
+	}
+
+	private void exportCache() {
+		TranslationCache cache = TranslationCache.getInstance();
+		type("translation_cache_entries", "gauge", "Cached translations per tier");
+		sample("translation_cache_entries", label("tier", "hot"), cache.getHotSize());
+		sample("translation_cache_entries", label("tier", "warm"), cache.getWarmSize());
+		type("translation_cache_hot_bytes", "gauge", "Estimated bytes held by the hot cache tier");
+		myBuilder.append("translation_cache_hot_bytes ").append(cache.getHotBytes()).append('\n');
+	}
+
+	private void histogram(String name, String labels, LatencyHistogram histogram) {
+		long[] counts = histogram.getCumulativeCounts(LATENCY_BOUNDS_MICROS);
+		for(int i = 0; i < LATENCY_BOUNDS_MICROS.length; i++){
+			sample(name + "_bucket", labels + "," + label("le", seconds(LATENCY_BOUNDS_MICROS[i])), counts[i]);
+		}
+		long count = histogram.getCount();
+		sample(name + "_bucket", labels + "," + label("le", "+Inf"), count);
+		sample(name + "_count", labels, count);
+		myBuilder.append(name).append("_sum{").append(labels).append("} ").append(seconds(histogram.getSum())).append('\n');
+	}
+
+	private void type(String name, String type, String help) {
+		myBuilder.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+		myBuilder.append("# HELP ").append(name).append(' ').append(help).append('\n');
+	}
+
+	private void sample(String name, String labels, long value) {
+		myBuilder.append(name).append('{').append(labels).append("} ").append(value).append('\n');
+	}
+
+	private static String label(String name, String value) {
+		return name + "=\"" + value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n") + '"';
+	}
+
+	private static String seconds(long micros) {
+		return Double.toString(micros / 1000000.0);
+	}
+}
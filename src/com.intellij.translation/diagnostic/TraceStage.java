@@ -0,0 +1,42 @@
+/*
+ * Copyright 2016 Yuyou Chow
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intellij.translation.diagnostic;
+
+/**
+ * Stages of a translation, in pipeline order. The duration of a stage is the time since the previous recorded stage.
+ */
+public enum TraceStage {
+	ACTION_INVOKED("action"),
+	QUEUE_WAIT("queue"),
+	CACHE_LOOKUP("cache"),
+	HTTP_CONNECT("connect"),
+	FIRST_BYTE("ttfb"),
+	BODY_READ("body"),
+	JSON_PARSE("parse"),
+	HTML_RENDER("render"),
+	EDT_DISPATCH("edt"),
+	PAINT("paint");
+
+	private final String myId;
+
+	TraceStage(String id) {
+		myId = id;
+	}
+
+	public String getId() {
+		return myId;
+	}
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2016 Yuyou Chow
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intellij.translation.diagnostic;
+
+import com.intellij.translation.translator.Translator;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Application-wide registry of {@link TranslatorMetrics}, keyed by translator class.
+ */
+public class TranslationMetrics {
+	private static final ConcurrentMap<String, TranslatorMetrics> ourMetrics = new ConcurrentHashMap<>();
+	private static final LatencyHistogram ourPooledFirstPaint = new LatencyHistogram();
+	private static final LatencyHistogram ourNewFirstPaint = new LatencyHistogram();
+
+	private TranslationMetrics() {
+	}
+
+	@NotNull
+	public static TranslatorMetrics forTranslator(@NotNull Translator translator) {
+		return forTranslator(translator.getClass());
+	}
+
+	@NotNull
+	public static TranslatorMetrics forTranslator(@NotNull Class<?> translatorClass) {
+		return ourMetrics.computeIfAbsent(translatorClass.getName(), key -> new TranslatorMetrics(translatorClass.getSimpleName()));
+	}
+
+	/**
+	 * Time from Quick Translate to the first painted popup content, kept apart for components built on demand,
+	 * which is how every popup started before components were pooled.
+	 */
+	public static void recordPopupFirstPaint(long nanos, boolean pooled) {
+		(pooled ? ourPooledFirstPaint : ourNewFirstPaint).recordNanos(nanos);
+	}
+
+	@NotNull
+	public static LatencyHistogram getPopupFirstPaint(boolean pooled) {
+		return pooled ? ourPooledFirstPaint : ourNewFirstPaint;
+	}
+
+	@NotNull
+	public static List<TranslatorMetrics> getAll() {
+		List<TranslatorMetrics> metrics = new ArrayList<>(ourMetrics.values());
+		metrics.sort(Comparator.comparing(TranslatorMetrics::getName));
+		return metrics;
+	}
+}
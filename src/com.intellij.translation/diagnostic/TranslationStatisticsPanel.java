@@ -0,0 +1,152 @@
+/*
+ * Copyright 2016 Yuyou Chow
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intellij.translation.diagnostic;
+
+import com.intellij.icons.AllIcons;
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.actionSystem.*;
+import com.intellij.openapi.fileChooser.FileChooserFactory;
+import com.intellij.openapi.fileChooser.FileSaverDescriptor;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.ui.Messages;
+import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.openapi.util.text.StringUtil;
+import com.intellij.openapi.vfs.VirtualFileWrapper;
+import com.intellij.translation.TranslationBundle;
+import com.intellij.translation.cache.TranslationCache;
+import com.intellij.translation.concurrent.TranslatorBulkhead;
+import com.intellij.translation.concurrent.TranslatorBulkheads;
+import com.intellij.ui.components.JBScrollPane;
+import com.intellij.ui.table.JBTable;
+import org.jetbrains.annotations.NotNull;
+
+import javax.swing.*;
+import javax.swing.table.DefaultTableModel;
+import java.awt.*;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * "Statistics" tab of the Translation tool window: live {@link TranslationMetrics} per translator and
+ * {@link TranslationTracer} stage latencies and the {@link TranslationCache} footprint, with export to OpenMetrics text.
+ */
+public class TranslationStatisticsPanel extends JPanel implements Disposable {
+	private static final String[] TRANSLATOR_COLUMNS = {
+		"Translator", "Requests", "Retries", "Received", "Cache hits", "Cache misses", "Errors", "Timeouts", "Rejected", "Queued", "p50 ms", "p90 ms", "p99 ms"
+	};
+	private static final String[] STAGE_COLUMNS = {"Stage", "Count", "p50 ms", "p90 ms", "p99 ms", "Max ms"};
+	private static final int REFRESH_INTERVAL = 1000;
+
+	private final Project myProject;
+	private final DefaultTableModel myTranslatorModel = createModel(TRANSLATOR_COLUMNS);
+	private final DefaultTableModel myStageModel = createModel(STAGE_COLUMNS);
+	private final JLabel myCacheLabel = new JLabel();
+	private final Timer myTimer;
+
+	public TranslationStatisticsPanel(@NotNull Project project) {
+		super(new BorderLayout());
+		myProject = project;
+
+		DefaultActionGroup actions = new DefaultActionGroup();
+		actions.add(new ExportAction());
+		ActionToolbar toolbar = ActionManager.getInstance().createActionToolbar(ActionPlaces.UNKNOWN, actions, true);
+		add(toolbar.getComponent(), BorderLayout.NORTH);
+
+		JPanel tables = new JPanel(new GridLayout(2, 1));
+		tables.add(new JBScrollPane(new JBTable(myTranslatorModel)));
+		tables.add(new JBScrollPane(new JBTable(myStageModel)));
+		add(tables, BorderLayout.CENTER);
+		add(myCacheLabel, BorderLayout.SOUTH);
+
+		myTimer = new Timer(REFRESH_INTERVAL, e -> refresh());
+		myTimer.start();
+		refresh();
+	}
+
+	@Override
+	public void dispose() {
+		myTimer.stop();
+	}
+
+	private void refresh() {
+		if(!isShowing() && myTranslatorModel.getRowCount() > 0) return;
+
+		Map<String, TranslatorBulkhead> bulkheads = new HashMap<>();
+		for(TranslatorBulkhead bulkhead : TranslatorBulkheads.getBulkheads()){
+			bulkheads.put(bulkhead.getName(), bulkhead);
+		}
+
+		myTranslatorModel.setRowCount(0);
+		for(TranslatorMetrics metrics : TranslationMetrics.getAll()){
+			TranslatorBulkhead bulkhead = bulkheads.get(metrics.getName());
+			LatencyHistogram latency = metrics.getLatency();
+			myTranslatorModel.addRow(new Object[]{
+				metrics.getName(), metrics.getRequests(), metrics.getRetries(), StringUtil.formatFileSize(metrics.getWireBytes()), metrics.getCacheHits(), metrics.getCacheMisses(),
+				metrics.getErrorCount(), metrics.getTimeouts(),
+				bulkhead != null ? bulkhead.getRejectedCount() : 0, bulkhead != null ? bulkhead.getQueueDepth() : 0,
+				millis(latency.getPercentile(50)), millis(latency.getPercentile(90)), millis(latency.getPercentile(99))
+			});
+		}
+
+		myStageModel.setRowCount(0);
+		for(Map.Entry<TraceStage, LatencyHistogram> entry : TranslationTracer.getStageHistograms().entrySet()){
+			LatencyHistogram histogram = entry.getValue();
+			myStageModel.addRow(new Object[]{
+				entry.getKey().getId(), histogram.getCount(), millis(histogram.getPercentile(50)),
+				millis(histogram.getPercentile(90)), millis(histogram.getPercentile(99)), millis(histogram.getMax())
+			});
+		}
+
+		TranslationCache cache = TranslationCache.getInstance();
+		myCacheLabel.setText(TranslationBundle.message("translation.statistics.cache",
+			cache.getHotSize(), StringUtil.formatFileSize(cache.getHotBytes()), cache.getWarmSize()));
+	}
+
+	private static String millis(long micros) {
+		return String.format("%.1f", micros / 1000.0);
+	}
+
+	@NotNull
+	private static DefaultTableModel createModel(String[] columns) {
+		return new DefaultTableModel(columns, 0) {
+			@Override
+			public boolean isCellEditable(int row, int column) {
+				return false;
+			}
+		};
+	}
+
+	private class ExportAction extends AnAction {
+		private ExportAction() {
+			super(TranslationBundle.message("translation.statistics.export"), null, AllIcons.Actions.Export);
+		}
+
+		@Override
+		public void actionPerformed(AnActionEvent e) {
+			String title = TranslationBundle.message("translation.statistics.export");
+			FileSaverDescriptor descriptor = new FileSaverDescriptor(title, "", "txt");
+			VirtualFileWrapper wrapper = FileChooserFactory.getInstance().createSaveFileDialog(descriptor, myProject).save(null, "translation-metrics.txt");
+			if(wrapper == null) return;
+
+			try{
+				FileUtil.writeToFile(wrapper.getFile(), OpenMetricsExporter.export());
+			}catch (IOException ex){
+				Messages.showErrorDialog(myProject, ex.getMessage(), title);
+			}
+		}
+	}
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2016 Yuyou Chow
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intellij.translation.diagnostic;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Timestamps of the stages a single translation went through. Stages are marked from whichever thread
+ * runs them (EDT, pipeline, translator bulkhead), see {@link TranslationTracer}.
+ */
+public class TranslationTrace {
+	private static final TraceStage[] STAGES = TraceStage.values();
+
+	private final long myStartTime = System.nanoTime();
+	private final AtomicLongArray myMarks = new AtomicLongArray(STAGES.length);
+	private volatile String myTranslator;
+
+	public void mark(@NotNull TraceStage stage) {
+		myMarks.set(stage.ordinal(), System.nanoTime());
+	}
+
+	public boolean isMarked(@NotNull TraceStage stage) {
+		return myMarks.get(stage.ordinal()) != 0;
+	}
+
+	public void setTranslator(@Nullable String translator) {
+		myTranslator = translator;
+	}
+
+	/**
+	 * @return time spent in the stage, or -1 if it was not recorded
+	 */
+	public long getDurationNanos(@NotNull TraceStage stage) {
+		long mark = myMarks.get(stage.ordinal());
+		if(mark == 0) return -1;
+		long previous = myStartTime;
+		for(int i = stage.ordinal() - 1; i >= 0; i--){
+			long previousMark = myMarks.get(i);
+			if(previousMark != 0){
+				previous = previousMark;
+				break;
+			}
+		}
+		return Math.max(0, mark - previous);
+	}
+
+	public long getTotalNanos() {
+		long last = myStartTime;
+		for(int i = 0; i < STAGES.length; i++){
+			last = Math.max(last, myMarks.get(i));
+		}
+		return last - myStartTime;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder builder = new StringBuilder("translation");
+		if(myTranslator != null){
+			builder.append(" by ").append(myTranslator);
+		}
+		builder.append(" took ").append(getTotalNanos() / 1000000).append("ms [");
+		boolean first = true;
+		for(TraceStage stage : STAGES){
+			long duration = getDurationNanos(stage);
+			if(duration < 0) continue;
+			if(!first) builder.append(", ");
+			builder.append(stage.getId()).append('=').append(duration / 1000 / 1000.0).append("ms");
+			first = false;
+		}
+		return builder.append(']').toString();
+	}
+}
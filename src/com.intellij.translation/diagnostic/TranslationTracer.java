@@ -0,0 +1,122 @@
+/*
+ * Copyright 2016 Yuyou Chow
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intellij.translation.diagnostic;
+
+import com.intellij.openapi.diagnostic.Logger;
+import org.jetbrains.annotations.NonNls;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Carries the {@link TranslationTrace} of the current thread and aggregates finished traces into per-stage histograms.
+ * Traces slower than <code>-Dtranslation.trace.slow.ms</code> (2 seconds by default) are logged.
+ */
+public class TranslationTracer {
+	private static final Logger LOG = Logger.getInstance("#" + TranslationTracer.class.getName());
+
+	@NonNls private static final String SLOW_THRESHOLD_PROPERTY = "translation.trace.slow.ms";
+	private static final long SLOW_THRESHOLD_NANOS = Long.getLong(SLOW_THRESHOLD_PROPERTY, 2000) * 1000000;
+
+	private static final ThreadLocal<TranslationTrace> ourCurrent = new ThreadLocal<>();
+	private static final Map<TraceStage, LatencyHistogram> ourStageHistograms = new EnumMap<>(TraceStage.class);
+	private static final LatencyHistogram ourTotalHistogram = new LatencyHistogram();
+
+	static {
+		for(TraceStage stage : TraceStage.values()){
+			ourStageHistograms.put(stage, new LatencyHistogram());
+		}
+	}
+
+	private TranslationTracer() {
+	}
+
+	/**
+	 * Starts a trace for a user-invoked translation on the current thread.
+	 */
+	@NotNull
+	public static TranslationTrace start() {
+		TranslationTrace trace = new TranslationTrace();
+		trace.mark(TraceStage.ACTION_INVOKED);
+		ourCurrent.set(trace);
+		return trace;
+	}
+
+	@Nullable
+	public static TranslationTrace current() {
+		return ourCurrent.get();
+	}
+
+	/**
+	 * Removes the trace from the current thread, so it can be handed over to another one.
+	 *
+	 * @return the current trace, or a new one if there is none
+	 */
+	@NotNull
+	public static TranslationTrace detach() {
+		TranslationTrace trace = ourCurrent.get();
+		ourCurrent.remove();
+		return trace != null ? trace : new TranslationTrace();
+	}
+
+	public static void attach(@Nullable TranslationTrace trace) {
+		if(trace == null){
+			ourCurrent.remove();
+		}else{
+			ourCurrent.set(trace);
+		}
+	}
+
+	/**
+	 * Marks the stage on the trace of the current thread, if any.
+	 */
+	public static void mark(@NotNull TraceStage stage) {
+		TranslationTrace trace = ourCurrent.get();
+		if(trace != null){
+			trace.mark(stage);
+		}
+	}
+
+	public static void finish(@NotNull TranslationTrace trace) {
+		for(TraceStage stage : TraceStage.values()){
+			long duration = trace.getDurationNanos(stage);
+			if(duration >= 0){
+				ourStageHistograms.get(stage).recordNanos(duration);
+			}
+		}
+		long total = trace.getTotalNanos();
+		ourTotalHistogram.recordNanos(total);
+
+		if(total > SLOW_THRESHOLD_NANOS){
+			LOG.info("Slow " + trace);
+		}else if(LOG.isDebugEnabled()){
+			LOG.debug(trace.toString());
+		}
+	}
+
+	@NotNull
+	public static Map<TraceStage, LatencyHistogram> getStageHistograms() {
+		return Collections.unmodifiableMap(ourStageHistograms);
+	}
+
+	@NotNull
+	public static LatencyHistogram getTotalHistogram() {
+		return ourTotalHistogram;
+	}
+}
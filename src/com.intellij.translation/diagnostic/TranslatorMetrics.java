@@ -0,0 +1,168 @@
+/*
+ * Copyright 2016 Yuyou Chow
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intellij.translation.diagnostic;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters and latency histogram of a single translator, see {@link TranslationMetrics}.
+ */
+public class TranslatorMetrics {
+	private final String myName;
+	private final LongAdder myRequests = new LongAdder();
+	private final LongAdder myCacheHits = new LongAdder();
+	private final LongAdder myCacheMisses = new LongAdder();
+	private final LongAdder myTimeouts = new LongAdder();
+	private final LongAdder myWireBytes = new LongAdder();
+	private final LongAdder myDecodedBytes = new LongAdder();
+	private final LongAdder myRetries = new LongAdder();
+	private final LongAdder myRetryRecoveries = new LongAdder();
+	private final ConcurrentMap<String, LongAdder> myRetriesAbandoned = new ConcurrentHashMap<>();
+	private final ConcurrentMap<String, LongAdder> myErrors = new ConcurrentHashMap<>();
+	private final LatencyHistogram myLatency = new LatencyHistogram();
+
+	TranslatorMetrics(@NotNull String name) {
+		myName = name;
+	}
+
+	@NotNull
+	public String getName() {
+		return myName;
+	}
+
+	public void recordRequest(long durationNanos) {
+		myRequests.increment();
+		myLatency.recordNanos(durationNanos);
+	}
+
+	public void recordCacheHit() {
+		myCacheHits.increment();
+	}
+
+	public void recordCacheMiss() {
+		myCacheMisses.increment();
+	}
+
+	public void recordTimeout() {
+		myTimeouts.increment();
+	}
+
+	/**
+	 * @param wireBytes    response body bytes as received, compressed or not
+	 * @param decodedBytes the same body after decompression
+	 */
+	public void recordResponseBytes(long wireBytes, long decodedBytes) {
+		myWireBytes.add(wireBytes);
+		myDecodedBytes.add(decodedBytes);
+	}
+
+	public void recordRetry() {
+		myRetries.increment();
+	}
+
+	/**
+	 * A request succeeded after at least one retry.
+	 */
+	public void recordRetryRecovery() {
+		myRetryRecoveries.increment();
+	}
+
+	/**
+	 * A retryable failure was not retried.
+	 *
+	 * @param reason <code>attempts</code>, <code>deadline</code> or <code>budget</code>
+	 */
+	public void recordRetryAbandoned(@NotNull String reason) {
+		myRetriesAbandoned.computeIfAbsent(reason, key -> new LongAdder()).increment();
+	}
+
+	/**
+	 * @param code e.g. <code>youdao-50</code>, <code>http-503</code> or an exception name
+	 */
+	public void recordError(@NotNull String code) {
+		myErrors.computeIfAbsent(code, key -> new LongAdder()).increment();
+	}
+
+	public long getRequests() {
+		return myRequests.sum();
+	}
+
+	public long getCacheHits() {
+		return myCacheHits.sum();
+	}
+
+	public long getCacheMisses() {
+		return myCacheMisses.sum();
+	}
+
+	public long getTimeouts() {
+		return myTimeouts.sum();
+	}
+
+	public long getWireBytes() {
+		return myWireBytes.sum();
+	}
+
+	public long getDecodedBytes() {
+		return myDecodedBytes.sum();
+	}
+
+	public long getRetries() {
+		return myRetries.sum();
+	}
+
+	public long getRetryRecoveries() {
+		return myRetryRecoveries.sum();
+	}
+
+	@NotNull
+	public Map<String, Long> getRetriesAbandoned() {
+		return sums(myRetriesAbandoned);
+	}
+
+	public long getErrorCount() {
+		long count = 0;
+		for(LongAdder adder : myErrors.values()){
+			count += adder.sum();
+		}
+		return count;
+	}
+
+	@NotNull
+	public Map<String, Long> getErrors() {
+		return sums(myErrors);
+	}
+
+	@NotNull
+	public LatencyHistogram getLatency() {
+		return myLatency;
+	}
+
+	@NotNull
+	private static Map<String, Long> sums(@NotNull Map<String, LongAdder> adders) {
+		Map<String, Long> sums = new TreeMap<>();
+		for(Map.Entry<String, LongAdder> entry : adders.entrySet()){
+			sums.put(entry.getKey(), entry.getValue().sum());
+		}
+		return sums;
+	}
+}
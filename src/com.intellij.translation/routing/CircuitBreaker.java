@@ -0,0 +1,84 @@
+/*
+ * Copyright 2016 Yuyou Chow
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intellij.translation.routing;
+
+/**
+ * Opens after {@code failureThreshold} consecutive failures, lets a single probe through after {@code openMillis}
+ * (half-open) and closes again on the first success.
+ */
+public class CircuitBreaker {
+	public enum State {
+		CLOSED, OPEN, HALF_OPEN
+	}
+
+	private final int myFailureThreshold;
+	private final long myOpenMillis;
+
+	private State myState = State.CLOSED;
+	private int myConsecutiveFailures;
+	private long myOpenedAt;
+	/** when the half-open probe was let through, 0 if none is in flight */
+	private long myProbeStartedAt;
+
+	public CircuitBreaker(int failureThreshold, long openMillis) {
+		myFailureThreshold = failureThreshold;
+		myOpenMillis = openMillis;
+	}
+
+	public synchronized State getState() {
+		if(myState == State.OPEN && System.currentTimeMillis() - myOpenedAt >= myOpenMillis){
+			myState = State.HALF_OPEN;
+		}
+		return myState;
+	}
+
+	/**
+	 * Takes the single probe when half-open, its outcome must be reported with {@link #recordSuccess()} or
+	 * {@link #recordFailure()}. A probe that never reports is replaced by the next one after {@code openMillis}.
+	 *
+	 * @return <code>false</code> while the circuit is open, or half-open with the probe in flight, and the translator should be skipped
+	 */
+	public synchronized boolean allowsRequest() {
+		switch(getState()){
+			case CLOSED:
+				return true;
+			case HALF_OPEN:
+				long now = System.currentTimeMillis();
+				if(myProbeStartedAt == 0 || now - myProbeStartedAt >= myOpenMillis){
+					myProbeStartedAt = now;
+					return true;
+				}
+				return false;
+			default:
+				return false;
+		}
+	}
+
+	public synchronized void recordSuccess() {
+		myConsecutiveFailures = 0;
+		myProbeStartedAt = 0;
+		myState = State.CLOSED;
+	}
+
+	public synchronized void recordFailure() {
+		myConsecutiveFailures++;
+		myProbeStartedAt = 0;
+		if(myState == State.HALF_OPEN || myConsecutiveFailures >= myFailureThreshold){
+			myState = State.OPEN;
+			myOpenedAt = System.currentTimeMillis();
+		}
+	}
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright 2016 Yuyou Chow
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intellij.translation.routing;
+
+/**
+ * Live view of a translator used by {@link TranslatorRouter}: EWMA latency and success rate plus a {@link CircuitBreaker}.
+ * Only successful requests move the latency, rejections and timeouts say nothing about how fast an answer comes.
+ */
+public class TranslatorHealth {
+	private static final double ALPHA = 0.2;
+	private static final double INITIAL_LATENCY_MILLIS = 500;
+	private static final int FAILURE_THRESHOLD = 5;
+	private static final long OPEN_MILLIS = 30000;
+
+	private final CircuitBreaker myCircuitBreaker = new CircuitBreaker(FAILURE_THRESHOLD, OPEN_MILLIS);
+	private double myLatencyMillis = INITIAL_LATENCY_MILLIS;
+	private double mySuccessRate = 1;
+
+	public synchronized void record(boolean success, long durationNanos) {
+		if(success){
+			myLatencyMillis += ALPHA * (durationNanos / 1000000.0 - myLatencyMillis);
+		}
+		mySuccessRate += ALPHA * ((success ? 1 : 0) - mySuccessRate);
+		if(success){
+			myCircuitBreaker.recordSuccess();
+		}else{
+			myCircuitBreaker.recordFailure();
+		}
+	}
+
+	public synchronized double getLatencyMillis() {
+		return myLatencyMillis;
+	}
+
+	public synchronized double getSuccessRate() {
+		return mySuccessRate;
+	}
+
+	public CircuitBreaker.State getCircuitState() {
+		return myCircuitBreaker.getState();
+	}
+
+	/**
+	 * @see CircuitBreaker#allowsRequest()
+	 */
+	public boolean allowsRequest() {
+		return myCircuitBreaker.allowsRequest();
+	}
+
+	/**
+	 * Expected time to get a translation, lower is better: latency inflated by the failure rate.
+	 */
+	public synchronized double getScore() {
+		return myLatencyMillis / Math.max(mySuccessRate, 0.05);
+	}
+}
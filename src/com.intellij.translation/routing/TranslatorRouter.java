@@ -0,0 +1,95 @@
+/*
+ * Copyright 2016 Yuyou Chow
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intellij.translation.routing;
+
+import com.intellij.translation.translator.TranslationResult;
+import com.intellij.translation.translator.Translator;
+import com.intellij.translation.translator.TranslatorEP;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Latency-aware routing: orders translators by {@link TranslatorHealth#getScore()}, moves translators with an open
+ * circuit to the end and, with a small probability, tries a random other translator first so degraded
+ * providers get re-evaluated.
+ */
+public class TranslatorRouter {
+	private static final double EXPLORATION_RATE = 0.05;
+
+	private static final ConcurrentMap<String, TranslatorHealth> ourHealth = new ConcurrentHashMap<>();
+
+	private TranslatorRouter() {
+	}
+
+	@NotNull
+	public static TranslatorHealth getHealth(@NotNull Translator translator) {
+		return getHealth(translator.getClass().getName());
+	}
+
+	@NotNull
+	public static TranslatorHealth getHealth(@NotNull String translatorClass) {
+		return ourHealth.computeIfAbsent(translatorClass, key -> new TranslatorHealth());
+	}
+
+	public static void record(@NotNull Translator translator, boolean success, long durationNanos) {
+		getHealth(translator).record(success, durationNanos);
+	}
+
+	/**
+	 * Only a successful translation counts as an answer. Error codes of the translator itself, e.g. an invalid key,
+	 * come back fast and must neither lower its latency nor close its circuit.
+	 *
+	 * @param result what the fetch returned, <code>null</code> if it found nothing
+	 */
+	public static void record(@NotNull Translator translator, @Nullable TranslationResult result, long durationNanos) {
+		record(translator, result != null && result.isSuccessful(), durationNanos);
+	}
+
+	/**
+	 * @return the translators in the order they should be tried for the next request, none of them is instantiated
+	 */
+	@NotNull
+	public static List<TranslatorEP> order(@NotNull List<TranslatorEP> translators) {
+		List<TranslatorEP> available = new ArrayList<>();
+		List<TranslatorEP> open = new ArrayList<>();
+		for(TranslatorEP translator : translators){
+			if(getHealth(translator.getImplementationClass()).getCircuitState() == CircuitBreaker.State.OPEN){
+				open.add(translator);
+			}else{
+				available.add(translator);
+			}
+		}
+		available.sort(Comparator.comparingDouble(translator -> getHealth(translator.getImplementationClass()).getScore()));
+
+		List<TranslatorEP> result = new ArrayList<>(translators.size());
+		result.addAll(available);
+		result.addAll(open);
+
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		if(result.size() > 1 && random.nextDouble() < EXPLORATION_RATE){
+			Collections.swap(result, 0, 1 + random.nextInt(result.size() - 1));
+		}
+		return result;
+	}
+}
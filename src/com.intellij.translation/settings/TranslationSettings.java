@@ -15,6 +15,7 @@
  */
 package com.intellij.translation.settings;
 
+import com.intellij.openapi.application.ApplicationManager;
 import com.intellij.openapi.components.PersistentStateComponent;
 import com.intellij.openapi.components.ServiceManager;
 import com.intellij.openapi.components.State;
@@ -27,8 +28,14 @@ import org.jetbrains.annotations.Nullable;
 @SuppressWarnings("MethodMayStatic")
 @State(name = "TranslationSettings", storages = @Storage("translation_settings.xml"))
 public class TranslationSettings implements PersistentStateComponent<TranslationSettings.State> {
+	private static TranslationSettings ourHeadlessInstance;
+
 	private State myState = new State();
 
+	public TranslationSettings() {
+		publish();
+	}
+
 	@Nullable
 	@Override
 	public State getState() {
@@ -38,14 +45,36 @@ public class TranslationSettings implements PersistentStateComponent<Translation
 	@Override
 	public void loadState(State state) {
 		myState = state;
+		publish();
 	}
 
+	/**
+	 * Makes changes done through the setters visible to requests, all at once, see {@link TranslationSettingsSnapshot}.
+	 */
+	public void publish(){
+		TranslationSettingsSnapshot.publish(myState);
+	}
+
+	/**
+	 * Outside the IDE, e.g. in the command line translator, there is no application to store settings,
+	 * a process-wide instance with the defaults is used instead.
+	 */
 	public static TranslationSettings getInstance(){
+		if(ApplicationManager.getApplication() == null){
+			synchronized(TranslationSettings.class){
+				if(ourHeadlessInstance == null){
+					ourHeadlessInstance = new TranslationSettings();
+				}
+				return ourHeadlessInstance;
+			}
+		}
 		return ServiceManager.getService(TranslationSettings.class);
 	}
 
 	public static class State {
 		public boolean enableSpecified = false;
+		public boolean enableSmartRouting = false;
+		public boolean warmUp = true;
 		public Class<? extends Translator> specifiedTranslator = YoudaoTranslator.class;
 
 		@NotNull
@@ -64,6 +93,20 @@ public class TranslationSettings implements PersistentStateComponent<Translation
 		myState.enableSpecified = bool;
 	}
 
+	public boolean isEnableSmartRouting(){
+		return myState.enableSmartRouting;
+	}
+	public void setEnableSmartRouting(boolean bool){
+		myState.enableSmartRouting = bool;
+	}
+
+	public boolean isWarmUp(){
+		return myState.warmUp;
+	}
+	public void setWarmUp(boolean bool){
+		myState.warmUp = bool;
+	}
+
 	public Class<? extends Translator> getSpecifiedTranslator(){
 		return myState.specifiedTranslator;
 	}
@@ -22,7 +22,7 @@ import com.intellij.openapi.util.Comparing;
 import com.intellij.translation.TranslationManager;
 import com.intellij.translation.settings.translator.GoogleTranslatorForm;
 import com.intellij.translation.settings.translator.YoudaoTranslatorForm;
-import com.intellij.translation.translator.Translator;
+import com.intellij.translation.translator.TranslatorEP;
 import org.jetbrains.annotations.Nls;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
@@ -40,6 +40,8 @@ public class TranslationSettingsConfigurable implements SearchableConfigurable,
 	private JCheckBox myTranslatorCheckBox;
 	private GoogleTranslatorForm myGoogleTranslatorForm;
 	private JComboBox myTranslatorComboBox;
+	private JCheckBox mySmartRoutingCheckBox;
+	private JCheckBox myWarmUpCheckBox;
 
 	public TranslationSettingsConfigurable() {
 		mySettings = TranslationSettings.getInstance();
@@ -49,8 +51,8 @@ public class TranslationSettingsConfigurable implements SearchableConfigurable,
 			@Override
 			public Component getListCellRendererComponent(JList<?> list, Object value, int index, boolean isSelected, boolean cellHasFocus) {
 				final Component rendererComponent = super.getListCellRendererComponent(list, value, index, isSelected, cellHasFocus);
-				if(value instanceof Translator){
-					final Translator translator = (Translator)value;
+				if(value instanceof TranslatorEP){
+					final TranslatorEP translator = (TranslatorEP)value;
 					setText(translator.getTitle());
 					setIcon(translator.getIcon());
 				}else{
@@ -60,20 +62,18 @@ public class TranslationSettingsConfigurable implements SearchableConfigurable,
 			}
 		});
 
-		for(Translator translator: TranslationManager.TRANSLATOR_EP.getExtensions()){
-			//noinspection unchecked
-			myTranslatorComboBox.addItem(translator);
+		for(TranslatorEP translator: TranslationManager.TRANSLATOR_EP.getExtensions()){
+			if(translator.hasCapability(TranslatorEP.FETCH)){
+				//noinspection unchecked
+				myTranslatorComboBox.addItem(translator);
+			}
 		}
 
-		if(mySettings.isEnableSpecified()){
-			toggleEnableSpecified(true);
+		myTranslatorCheckBox.addItemListener(e -> updateRoutingControls());
+		mySmartRoutingCheckBox.addItemListener(e -> updateRoutingControls());
 
-			if(mySettings.getSpecifiedTranslator() != null ){
-				myTranslatorComboBox.setSelectedItem(mySettings.getSpecifiedTranslator());
-			}
-		}else{
-			toggleEnableSpecified(false);
-		}
+		resetRouting();
+		myWarmUpCheckBox.setSelected(mySettings.isWarmUp());
 
 		// youdao
 		myYoudaoTranslatorForm.setApiKey(mySettings.getYoudaoKeyfrom(), mySettings.getYoudaoApiKey());
@@ -82,10 +82,42 @@ public class TranslationSettingsConfigurable implements SearchableConfigurable,
 		myGoogleTranslatorForm.setApiKey(mySettings.getGoogleApiKey());
 	}
 
-	private void toggleEnableSpecified(boolean bool){
-		myTranslatorCheckBox.setEnabled(bool);
-		myTranslatorCheckBox.setSelected(bool);
-		myTranslatorComboBox.setEnabled(bool);
+	private void resetRouting(){
+		myTranslatorCheckBox.setSelected(mySettings.isEnableSpecified());
+		mySmartRoutingCheckBox.setSelected(mySettings.isEnableSmartRouting());
+
+		myTranslatorComboBox.setSelectedItem(getSpecifiedTranslator());
+		updateRoutingControls();
+	}
+
+	/**
+	 * The combo box item standing for the stored translator. A translator that is gone or cannot fetch is shown, and
+	 * compared, as the first item, otherwise the settings would look modified as long as it stays stored.
+	 */
+	@Nullable
+	private TranslatorEP getSpecifiedTranslator(){
+		String specified = mySettings.getSpecifiedTranslator().getName();
+		for(int i = 0; i < myTranslatorComboBox.getItemCount(); i++){
+			TranslatorEP translator = (TranslatorEP)myTranslatorComboBox.getItemAt(i);
+			if(translator.getImplementationClass().equals(specified)){
+				return translator;
+			}
+		}
+		return myTranslatorComboBox.getItemCount() > 0 ? (TranslatorEP)myTranslatorComboBox.getItemAt(0) : null;
+	}
+
+	/**
+	 * Smart routing picks the translator itself, so a specified translator is ignored while it is on.
+	 */
+	private void updateRoutingControls(){
+		boolean smart = mySmartRoutingCheckBox.isSelected();
+		myTranslatorCheckBox.setEnabled(!smart);
+		myTranslatorComboBox.setEnabled(!smart && myTranslatorCheckBox.isSelected());
+	}
+
+	@Nullable
+	private TranslatorEP getSelectedTranslator(){
+		return (TranslatorEP)myTranslatorComboBox.getSelectedItem();
 	}
 
 	@NotNull
@@ -123,7 +155,9 @@ public class TranslationSettingsConfigurable implements SearchableConfigurable,
 	@Override
 	public boolean isModified() {
 		return !Comparing.equal(mySettings.isEnableSpecified(), myTranslatorCheckBox.isSelected()) ||
-			!Comparing.equal(mySettings.getSpecifiedTranslator(), ((Translator)myTranslatorComboBox.getSelectedItem()).getClass()) ||
+			!Comparing.equal(mySettings.isEnableSmartRouting(), mySmartRoutingCheckBox.isSelected()) ||
+			!Comparing.equal(mySettings.isWarmUp(), myWarmUpCheckBox.isSelected()) ||
+			getSpecifiedTranslator() != getSelectedTranslator() ||
 			myYoudaoTranslatorForm.isModified();
 	}
 
@@ -134,14 +168,26 @@ public class TranslationSettingsConfigurable implements SearchableConfigurable,
 		}
 
 		mySettings.setEnableSpecified(myTranslatorCheckBox.isSelected());
-		mySettings.setSpecifiedTranslator(((Translator)myTranslatorComboBox.getSelectedItem()).getClass());
+		mySettings.setEnableSmartRouting(mySmartRoutingCheckBox.isSelected());
+		mySettings.setWarmUp(myWarmUpCheckBox.isSelected());
+		// empty when no translator can fetch, the stored one is kept then
+		TranslatorEP selected = getSelectedTranslator();
+		if(selected != null){
+			try{
+				mySettings.setSpecifiedTranslator(selected.findImplementationClass());
+			}catch (ClassNotFoundException e){
+				throw new ConfigurationException(e.getMessage());
+			}
+		}
 
 		myYoudaoTranslatorForm.resetApiKeyModifed();
+		mySettings.publish();
 	}
 
 	@Override
 	public void reset() {
-		toggleEnableSpecified(false);
+		resetRouting();
+		myWarmUpCheckBox.setSelected(mySettings.isWarmUp());
 
 		myYoudaoTranslatorForm.setApiKey(mySettings.getYoudaoKeyfrom(), mySettings.getYoudaoApiKey());
 		myYoudaoTranslatorForm.resetApiKeyModifed();
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2016 Yuyou Chow
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intellij.translation.settings;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Immutable copy of {@link TranslationSettings} for the request path: read with a single volatile load instead of a
+ * service lookup, and consistent for a whole request even while the settings dialog changes the live state.
+ * <p>
+ * A new snapshot is published whenever the settings are loaded or applied. Its {@link #getVersion() version} only
+ * moves when a setting requests depend on changed, the credentials or the routing, so holders of derived state such
+ * as caches and pooled connections can tell when to drop it.
+ */
+public class TranslationSettingsSnapshot {
+	private static volatile TranslationSettingsSnapshot ourCurrent;
+
+	private final long myVersion;
+	private final boolean myEnableSpecified;
+	private final boolean myEnableSmartRouting;
+	private final boolean myWarmUp;
+	private final String mySpecifiedTranslator;
+	private final String myYoudaoKeyfrom;
+	private final String myYoudaoApiKey;
+	private final String myGoogleApiKey;
+
+	private TranslationSettingsSnapshot(long version, @NotNull TranslationSettings.State state) {
+		myVersion = version;
+		myEnableSpecified = state.enableSpecified;
+		myEnableSmartRouting = state.enableSmartRouting;
+		myWarmUp = state.warmUp;
+		mySpecifiedTranslator = state.specifiedTranslator != null ? state.specifiedTranslator.getName() : null;
+		myYoudaoKeyfrom = state.youdaoKeyfrom;
+		myYoudaoApiKey = state.youdaoApiKey;
+		myGoogleApiKey = state.googleApiKey;
+	}
+
+	@NotNull
+	public static TranslationSettingsSnapshot current() {
+		TranslationSettingsSnapshot snapshot = ourCurrent;
+		if(snapshot == null){
+			// the settings publish their first snapshot when they are created
+			TranslationSettings.getInstance();
+			snapshot = ourCurrent;
+		}
+		return snapshot;
+	}
+
+	/**
+	 * Replaces the current snapshot with a copy of the state, with the next version if requests are affected.
+	 */
+	static synchronized void publish(@NotNull TranslationSettings.State state) {
+		TranslationSettingsSnapshot current = ourCurrent;
+		TranslationSettingsSnapshot snapshot = new TranslationSettingsSnapshot(current != null ? current.myVersion : 1, state);
+		if(current != null && !current.sameRequestSettings(snapshot)){
+			snapshot = new TranslationSettingsSnapshot(current.myVersion + 1, state);
+		}
+		ourCurrent = snapshot;
+	}
+
+	public long getVersion() {
+		return myVersion;
+	}
+
+	public boolean isEnableSpecified() {
+		return myEnableSpecified;
+	}
+
+	public boolean isEnableSmartRouting() {
+		return myEnableSmartRouting;
+	}
+
+	public boolean isWarmUp() {
+		return myWarmUp;
+	}
+
+	/**
+	 * @return class name of the specified translator
+	 */
+	@Nullable
+	public String getSpecifiedTranslator() {
+		return mySpecifiedTranslator;
+	}
+
+	public String getYoudaoKeyfrom() {
+		return myYoudaoKeyfrom;
+	}
+
+	public String getYoudaoApiKey() {
+		return myYoudaoApiKey;
+	}
+
+	@Nullable
+	public String getGoogleApiKey() {
+		return myGoogleApiKey;
+	}
+
+	/**
+	 * Compares what decides where requests go and how they authenticate, e.g. not {@link #isWarmUp()}.
+	 */
+	private boolean sameRequestSettings(@NotNull TranslationSettingsSnapshot other) {
+		return myEnableSpecified == other.myEnableSpecified &&
+			myEnableSmartRouting == other.myEnableSmartRouting &&
+			equal(mySpecifiedTranslator, other.mySpecifiedTranslator) &&
+			equal(myYoudaoKeyfrom, other.myYoudaoKeyfrom) &&
+			equal(myYoudaoApiKey, other.myYoudaoApiKey) &&
+			equal(myGoogleApiKey, other.myGoogleApiKey);
+	}
+
+	private static boolean equal(@Nullable String a, @Nullable String b) {
+		return a == null ? b == null : a.equals(b);
+	}
+}
@@ -0,0 +1,178 @@
+/*
+ * Copyright 2016 Yuyou Chow
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intellij.translation.translator;
+
+import com.intellij.translation.diagnostic.TraceStage;
+import com.intellij.translation.diagnostic.TranslationTracer;
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.client.entity.DeflateInputStream;
+import org.apache.http.entity.HttpEntityWrapper;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Response body as translators read it: decoded according to its <code>Content-Encoding</code> while it is read,
+ * cut off after a maximum decoded size, with both the bytes on the wire and the decoded bytes counted.
+ */
+class DecodingEntity extends HttpEntityWrapper {
+	private final long myMaxSize;
+	private CountingInputStream myWire;
+	private CountingInputStream myDecoded;
+
+	DecodingEntity(@NotNull HttpEntity entity, long maxSize) {
+		super(entity);
+		myMaxSize = maxSize;
+	}
+
+	@Override
+	public InputStream getContent() throws IOException {
+		if(myDecoded == null){
+			if(wrappedEntity.getContentLength() > myMaxSize){
+				throw new TooLargeException(myMaxSize);
+			}
+			myWire = new CountingInputStream(wrappedEntity.getContent(), Long.MAX_VALUE);
+			myDecoded = new CountingInputStream(decode(myWire, wrappedEntity.getContentEncoding()), myMaxSize);
+		}
+		return myDecoded;
+	}
+
+	@Override
+	public long getContentLength() {
+		return -1;
+	}
+
+	@Override
+	public Header getContentEncoding() {
+		return null;
+	}
+
+	@Override
+	public boolean isRepeatable() {
+		return false;
+	}
+
+	@Override
+	public boolean isStreaming() {
+		return myDecoded == null || !myDecoded.myEnd;
+	}
+
+	@Override
+	public void writeTo(OutputStream out) throws IOException {
+		try(InputStream in = getContent()){
+			byte[] buffer = new byte[4096];
+			int read;
+			while((read = in.read(buffer)) != -1){
+				out.write(buffer, 0, read);
+			}
+		}
+	}
+
+	long getWireBytes() {
+		return myWire != null ? myWire.myCount : 0;
+	}
+
+	long getDecodedBytes() {
+		return myDecoded != null ? myDecoded.myCount : 0;
+	}
+
+	@NotNull
+	private static InputStream decode(@NotNull InputStream in, Header encoding) throws IOException {
+		String coding = encoding != null ? encoding.getValue().trim().toLowerCase(Locale.ENGLISH) : "";
+		switch(coding){
+			case "":
+			case "identity":
+				return in;
+			case "gzip":
+			case "x-gzip":
+				return new GZIPInputStream(in);
+			case "deflate":
+				// zlib wrapped or raw, servers do both
+				return new DeflateInputStream(in);
+			default:
+				throw new IOException("Unsupported Content-Encoding: " + coding);
+		}
+	}
+
+	/**
+	 * The response is larger than translators are allowed to read, retrying will not make it smaller.
+	 */
+	static class TooLargeException extends IOException {
+		TooLargeException(long maxSize) {
+			super("Response exceeds " + maxSize + " bytes");
+		}
+	}
+
+	/**
+	 * Counts what is read, fails once more than the limit is read and marks {@link TraceStage#BODY_READ} at the end.
+	 */
+	private static class CountingInputStream extends FilterInputStream {
+		private final long myLimit;
+		private long myCount;
+		private boolean myEnd;
+
+		CountingInputStream(@NotNull InputStream in, long limit) {
+			super(in);
+			myLimit = limit;
+		}
+
+		@Override
+		public int read() throws IOException {
+			int b = super.read();
+			count(b == -1 ? -1 : 1);
+			return b;
+		}
+
+		@Override
+		public int read(@NotNull byte[] b, int off, int len) throws IOException {
+			int read = super.read(b, off, len);
+			count(read);
+			return read;
+		}
+
+		@Override
+		public long skip(long n) throws IOException {
+			long skipped = super.skip(n);
+			count(skipped);
+			return skipped;
+		}
+
+		@Override
+		public boolean markSupported() {
+			return false;
+		}
+
+		private void count(long read) throws IOException {
+			if(read == -1){
+				if(!myEnd){
+					myEnd = true;
+					TranslationTracer.mark(TraceStage.BODY_READ);
+				}
+				return;
+			}
+			myCount += read;
+			if(myCount > myLimit){
+				throw new TooLargeException(myLimit);
+			}
+		}
+	}
+}
@@ -15,15 +15,18 @@
  */
 package com.intellij.translation.translator;
 
+import com.intellij.translation.detect.LanguageDetector;
 import com.intellij.translation.icons.TranslationIcons;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import javax.swing.*;
-import java.io.UnsupportedEncodingException;
-import java.net.URLEncoder;
 
 public class GoogleTranslator implements Translator {
+	// Chinese is already the target language, translate it into English instead
+	private static final UrlTemplate FROM_CHINESE_URL = new UrlTemplate("https://translate.google.cn/#zh-CN/en/", "");
+	private static final UrlTemplate TO_CHINESE_URL = new UrlTemplate("https://translate.google.cn/#auto/zh-CN/", "");
+
 	@NotNull
 	@Override
 	public String getTitle() {
@@ -46,11 +49,7 @@ public class GoogleTranslator implements Translator {
 	@Nullable
 	@Override
 	public String getExternalUrl(String query) {
-		try{
-			String finalQuery = URLEncoder.encode(query, "UTF-8");
-			return "https://translate.google.cn/#auto/zh-CN/" + finalQuery;
-		} catch (UnsupportedEncodingException ignore) {
-		}
-		return null;
+		UrlTemplate template = LanguageDetector.detect(query) == LanguageDetector.Language.CHINESE ? FROM_CHINESE_URL : TO_CHINESE_URL;
+		return template.expand(query);
 	}
 }
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2016 Yuyou Chow
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intellij.translation.translator;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * <code>application/x-www-form-urlencoded</code> encoding of UTF-8 text, producing what
+ * {@link java.net.URLEncoder#encode(String, String)} does without looking up a charset or encoder per call.
+ */
+final class PercentEncoder {
+	private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+	private static final boolean[] UNRESERVED = new boolean[128];
+
+	static {
+		for(char c = 'a'; c <= 'z'; c++){
+			UNRESERVED[c] = true;
+		}
+		for(char c = 'A'; c <= 'Z'; c++){
+			UNRESERVED[c] = true;
+		}
+		for(char c = '0'; c <= '9'; c++){
+			UNRESERVED[c] = true;
+		}
+		UNRESERVED['-'] = true;
+		UNRESERVED['_'] = true;
+		UNRESERVED['.'] = true;
+		UNRESERVED['*'] = true;
+	}
+
+	private PercentEncoder() {
+	}
+
+	@NotNull
+	static String encode(@NotNull String text) {
+		for(int i = 0; i < text.length(); i++){
+			char c = text.charAt(i);
+			if(c >= 128 || !UNRESERVED[c]){
+				StringBuilder builder = new StringBuilder(text.length() + 16);
+				builder.append(text, 0, i);
+				appendEncoded(text, i, builder);
+				return builder.toString();
+			}
+		}
+		return text;
+	}
+
+	static void appendEncoded(@NotNull CharSequence text, @NotNull StringBuilder out) {
+		appendEncoded(text, 0, out);
+	}
+
+	private static void appendEncoded(@NotNull CharSequence text, int from, @NotNull StringBuilder out) {
+		int length = text.length();
+		for(int i = from; i < length; i++){
+			char c = text.charAt(i);
+			if(c < 128){
+				if(UNRESERVED[c]){
+					out.append(c);
+				}else if(c == ' '){
+					out.append('+');
+				}else{
+					appendByte(c, out);
+				}
+			}else if(c < 0x800){
+				appendByte(0xC0 | (c >> 6), out);
+				appendByte(0x80 | (c & 0x3F), out);
+			}else if(Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(text.charAt(i + 1))){
+				int codePoint = Character.toCodePoint(c, text.charAt(++i));
+				appendByte(0xF0 | (codePoint >> 18), out);
+				appendByte(0x80 | ((codePoint >> 12) & 0x3F), out);
+				appendByte(0x80 | ((codePoint >> 6) & 0x3F), out);
+				appendByte(0x80 | (codePoint & 0x3F), out);
+			}else if(Character.isSurrogate(c)){
+				// unpaired surrogates are replaced the way the UTF-8 encoder does
+				appendByte('?', out);
+			}else{
+				appendByte(0xE0 | (c >> 12), out);
+				appendByte(0x80 | ((c >> 6) & 0x3F), out);
+				appendByte(0x80 | (c & 0x3F), out);
+			}
+		}
+	}
+
+	private static void appendByte(int b, @NotNull StringBuilder out) {
+		out.append('%').append(HEX[(b >> 4) & 0xF]).append(HEX[b & 0xF]);
+	}
+}
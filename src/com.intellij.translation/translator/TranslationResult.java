@@ -0,0 +1,195 @@
+/*
+ * Copyright 2016 Yuyou Chow
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intellij.translation.translator;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * What a translator found for a query, kept instead of rendered HTML: this is what gets cached and passed around,
+ * {@link com.intellij.translation.TranslationRenderer} turns it into HTML when it is displayed.
+ * <p>
+ * Translators without a structured response can still hand over ready-made HTML, see {@link #html(String, String)}.
+ */
+public class TranslationResult {
+	public static final int SUCCESS = 0;
+	/** the request itself failed, e.g. with an HTTP error; {@link #getErrorMessage()} tells why */
+	public static final int FAILURE = -1;
+
+	/** object headers, fields and list overhead */
+	private static final int BASE_SIZE = 128;
+
+	private final String myQuery;
+	private final int myErrorCode;
+	private final String myErrorMessage;
+	private final List<String> myTranslations;
+	private final String myPhonetic;
+	private final String myUsPhonetic;
+	private final String myUkPhonetic;
+	private final List<String> myExplains;
+	private final List<WebEntry> myWebEntries;
+	private final String myHtml;
+
+	public TranslationResult(@NotNull String query, int errorCode, @Nullable String errorMessage,
+	                         @NotNull List<String> translations, @Nullable String phonetic, @Nullable String usPhonetic, @Nullable String ukPhonetic,
+	                         @NotNull List<String> explains, @NotNull List<WebEntry> webEntries) {
+		this(query, errorCode, errorMessage, translations, phonetic, usPhonetic, ukPhonetic, explains, webEntries, null);
+	}
+
+	private TranslationResult(@NotNull String query, int errorCode, @Nullable String errorMessage,
+	                          @NotNull List<String> translations, @Nullable String phonetic, @Nullable String usPhonetic, @Nullable String ukPhonetic,
+	                          @NotNull List<String> explains, @NotNull List<WebEntry> webEntries, @Nullable String html) {
+		myQuery = query;
+		myErrorCode = errorCode;
+		myErrorMessage = errorMessage;
+		myTranslations = Collections.unmodifiableList(translations);
+		myPhonetic = phonetic;
+		myUsPhonetic = usPhonetic;
+		myUkPhonetic = ukPhonetic;
+		myExplains = Collections.unmodifiableList(explains);
+		myWebEntries = Collections.unmodifiableList(webEntries);
+		myHtml = html;
+	}
+
+	/**
+	 * Wraps a translation some translator already rendered itself.
+	 */
+	@NotNull
+	public static TranslationResult html(@NotNull String query, @NotNull String html) {
+		return new TranslationResult(query, SUCCESS, null, Collections.emptyList(), null, null, null,
+			Collections.emptyList(), Collections.emptyList(), html);
+	}
+
+	@NotNull
+	public static TranslationResult failure(@NotNull String query, @Nullable String message) {
+		return new TranslationResult(query, FAILURE, message, Collections.emptyList(), null, null, null,
+			Collections.emptyList(), Collections.emptyList());
+	}
+
+	@NotNull
+	public String getQuery() {
+		return myQuery;
+	}
+
+	public int getErrorCode() {
+		return myErrorCode;
+	}
+
+	@Nullable
+	public String getErrorMessage() {
+		return myErrorMessage;
+	}
+
+	public boolean isSuccessful() {
+		return myErrorCode == SUCCESS;
+	}
+
+	@NotNull
+	public List<String> getTranslations() {
+		return myTranslations;
+	}
+
+	/**
+	 * @return pinyin for Chinese queries
+	 */
+	@Nullable
+	public String getPhonetic() {
+		return myPhonetic;
+	}
+
+	@Nullable
+	public String getUsPhonetic() {
+		return myUsPhonetic;
+	}
+
+	@Nullable
+	public String getUkPhonetic() {
+		return myUkPhonetic;
+	}
+
+	@NotNull
+	public List<String> getExplains() {
+		return myExplains;
+	}
+
+	@NotNull
+	public List<WebEntry> getWebEntries() {
+		return myWebEntries;
+	}
+
+	/**
+	 * @return pre-rendered HTML of a translator without structured results, <code>null</code> otherwise
+	 */
+	@Nullable
+	public String getHtml() {
+		return myHtml;
+	}
+
+	/**
+	 * @return rough number of bytes this result keeps alive, used to bound caches
+	 */
+	public int estimateSize() {
+		long chars = length(myQuery) + length(myErrorMessage) + length(myPhonetic) + length(myUsPhonetic) + length(myUkPhonetic) + length(myHtml);
+		int objects = 1;
+		for(String translation : myTranslations){
+			chars += translation.length();
+			objects++;
+		}
+		for(String explain : myExplains){
+			chars += explain.length();
+			objects++;
+		}
+		for(WebEntry entry : myWebEntries){
+			chars += entry.getKey().length();
+			objects++;
+			for(String value : entry.getValues()){
+				chars += value.length();
+				objects++;
+			}
+		}
+		return (int)Math.min(Integer.MAX_VALUE, BASE_SIZE + objects * 40L + chars * 2);
+	}
+
+	private static int length(@Nullable String text) {
+		return text != null ? text.length() : 0;
+	}
+
+	/**
+	 * A phrase from the web containing the query and its translations.
+	 */
+	public static class WebEntry {
+		private final String myKey;
+		private final List<String> myValues;
+
+		public WebEntry(@NotNull String key, @NotNull List<String> values) {
+			myKey = key;
+			myValues = Collections.unmodifiableList(values);
+		}
+
+		@NotNull
+		public String getKey() {
+			return myKey;
+		}
+
+		@NotNull
+		public List<String> getValues() {
+			return myValues;
+		}
+	}
+}
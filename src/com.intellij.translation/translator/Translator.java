@@ -30,6 +30,15 @@ public interface Translator {
 	@Nullable
 	String fetchInfo(String query);
 
+	/**
+	 * Translators able to parse the response override this, the default wraps the HTML of {@link #fetchInfo(String)}.
+	 */
+	@Nullable
+	default TranslationResult fetchResult(String query) {
+		String html = fetchInfo(query);
+		return html != null ? TranslationResult.html(query, html) : null;
+	}
+
 	@Nullable
 	String getExternalUrl(String query);
 }
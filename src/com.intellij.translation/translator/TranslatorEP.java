@@ -0,0 +1,124 @@
+/*
+ * Copyright 2016 Yuyou Chow
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intellij.translation.translator;
+
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.extensions.AbstractExtensionPointBean;
+import com.intellij.openapi.util.IconLoader;
+import com.intellij.util.xmlb.annotations.Attribute;
+import org.jetbrains.annotations.NonNls;
+import org.jetbrains.annotations.NotNull;
+
+import javax.swing.*;
+
+/**
+ * A <code>translator</code> extension. Title, icon and capabilities can be declared in the plugin xml, so that
+ * listing translators or picking one does not instantiate all of them; the translator itself is created the first
+ * time it is used:
+ * <pre>
+ * &lt;translator implementation="com.intellij.translation.translator.YoudaoTranslator"
+ *             title="Youdao Translation" icon="/icons/youdao-16.png" capabilities="fetch,external"/&gt;
+ * </pre>
+ * Undeclared metadata is taken from the translator instance.
+ */
+public class TranslatorEP extends AbstractExtensionPointBean {
+	private static final Logger LOG = Logger.getInstance("#" + TranslatorEP.class.getName());
+
+	/** fetches translations shown in the popup and tool window */
+	@NonNls public static final String FETCH = "fetch";
+	/** links to an external translation page */
+	@NonNls public static final String EXTERNAL = "external";
+
+	@Attribute("implementation")
+	public String implementationClass;
+
+	@Attribute("title")
+	public String title;
+
+	@Attribute("icon")
+	public String icon;
+
+	/** comma separated {@link #FETCH} and {@link #EXTERNAL}, all of them if not declared */
+	@Attribute("capabilities")
+	public String capabilities;
+
+	private volatile Translator myInstance;
+	private Icon myIcon;
+
+	@NotNull
+	public Translator getInstance() {
+		Translator instance = myInstance;
+		if(instance == null){
+			synchronized(this){
+				instance = myInstance;
+				if(instance == null){
+					long start = System.nanoTime();
+					try{
+						instance = instantiate(implementationClass, ApplicationManager.getApplication().getPicoContainer());
+					}catch (ClassNotFoundException e){
+						throw new IllegalStateException("Cannot load translator " + implementationClass, e);
+					}
+					LOG.debug("Created translator " + implementationClass + " in " + (System.nanoTime() - start) / 1000 + "us");
+					myInstance = instance;
+				}
+			}
+		}
+		return instance;
+	}
+
+	@NotNull
+	public String getImplementationClass() {
+		return implementationClass;
+	}
+
+	@NotNull
+	public String getTitle() {
+		return title != null ? title : getInstance().getTitle();
+	}
+
+	@NotNull
+	public Icon getIcon() {
+		if(icon == null){
+			return getInstance().getIcon();
+		}
+		if(myIcon == null){
+			Icon loaded = IconLoader.findIcon(icon, getLoaderForClass());
+			myIcon = loaded != null ? loaded : getInstance().getIcon();
+		}
+		return myIcon;
+	}
+
+	public boolean hasCapability(@NotNull String capability) {
+		if(capabilities == null){
+			return true;
+		}
+		for(String declared : capabilities.split(",")){
+			if(declared.trim().equals(capability)){
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * @return the translator class, loaded but not instantiated
+	 */
+	@NotNull
+	public Class<? extends Translator> findImplementationClass() throws ClassNotFoundException {
+		return findClass(implementationClass);
+	}
+}
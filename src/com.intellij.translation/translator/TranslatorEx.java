@@ -32,6 +32,12 @@ public abstract class TranslatorEx implements Translator{
 	public abstract URI createUrl(String query) throws URISyntaxException;
 	@Nullable
 	public abstract String generateSuccess(HttpEntity entity) throws IOException;
+
+	@Nullable
+	public TranslationResult generateResult(String query, HttpEntity entity) throws IOException {
+		String html = generateSuccess(entity);
+		return html != null ? TranslationResult.html(query, html) : null;
+	}
 	@Nullable
 	public abstract String generateFail(HttpResponse response);
 }
@@ -15,24 +15,143 @@
  */
 package com.intellij.translation.translator;
 
-import org.apache.http.HttpEntity;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.translation.concurrent.RetryBudget;
+import com.intellij.translation.concurrent.RetryPolicy;
+import com.intellij.translation.concurrent.TranslatorBulkheads;
+import com.intellij.translation.diagnostic.TraceStage;
+import com.intellij.translation.diagnostic.TranslationMetrics;
+import com.intellij.translation.diagnostic.TranslationTracer;
+import com.intellij.translation.diagnostic.TranslatorMetrics;
+import com.intellij.translation.settings.TranslationSettingsSnapshot;
+import org.apache.http.Header;
+import org.apache.http.HttpClientConnection;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpHost;
 import org.apache.http.HttpResponse;
 import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.client.utils.URIUtils;
+import org.apache.http.config.Registry;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.ConnectTimeoutException;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
 import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.http.impl.client.HttpClientBuilder;
 import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.DefaultSchemePortResolver;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.protocol.HttpContext;
+import org.apache.http.util.EntityUtils;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
+import javax.net.ssl.SSLException;
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
 import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.UnknownHostException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 
+import static com.intellij.translation.TranslationConstants.HTTP_IDLE_TIMEOUT;
+import static com.intellij.translation.TranslationConstants.HTTP_MAX_CONNECTIONS;
+import static com.intellij.translation.TranslationConstants.HTTP_MAX_CONNECTIONS_PER_ROUTE;
+import static com.intellij.translation.TranslationConstants.HTTP_VALIDATE_AFTER_INACTIVITY;
+import static com.intellij.translation.TranslationConstants.MAX_RESPONSE_SIZE;
 import static com.intellij.translation.TranslationConstants.REQUEST_TIMEOUT;
+import static com.intellij.translation.TranslationConstants.RETRY_BASE_DELAY;
+import static com.intellij.translation.TranslationConstants.RETRY_BUDGET_CAPACITY;
+import static com.intellij.translation.TranslationConstants.RETRY_BUDGET_RATIO;
+import static com.intellij.translation.TranslationConstants.RETRY_MAX_ATTEMPTS;
+import static com.intellij.translation.TranslationConstants.RETRY_MAX_DELAY;
 
 public class TranslatorUtil {
+	private static final Logger LOG = Logger.getInstance("#" + TranslatorUtil.class.getName());
+
+	/** shared by all translators, so is its budget */
+	private static final RetryPolicy RETRY_POLICY = new RetryPolicy(RETRY_MAX_ATTEMPTS, RETRY_BASE_DELAY, RETRY_MAX_DELAY,
+		new RetryBudget(RETRY_BUDGET_RATIO, RETRY_BUDGET_CAPACITY));
+
+	/** version of the settings the pooled connections were opened with */
+	private static volatile long ourPoolSettingsVersion;
+
+	/**
+	 * The client all translators share, so that connections are kept alive and reused between translations.
+	 */
+	@NotNull
+	public static CloseableHttpClient getClient(){
+		return ClientHolder.CLIENT;
+	}
+
 	public static CloseableHttpClient createClient(){
+		return createClient(createConnectionManager());
+	}
+
+	/**
+	 * Opens a connection to the url's host and leaves it in the pool of {@link #getClient()}, so that the next
+	 * request to that host skips the connect. Nothing is sent.
+	 */
+	public static void preconnect(@NotNull URI url) throws IOException, InterruptedException, ExecutionException {
+		HttpHost target = URIUtils.extractHost(url);
+		if(target == null){
+			return;
+		}
+		// the same route the client plans for its requests, otherwise the connection would not be picked
+		target = new HttpHost(target.getHostName(), DefaultSchemePortResolver.INSTANCE.resolve(target), target.getSchemeName());
+		HttpRoute route = new HttpRoute(target, null, "https".equalsIgnoreCase(target.getSchemeName()));
+
+		PoolingHttpClientConnectionManager connectionManager = ClientHolder.CONNECTION_MANAGER;
+		HttpClientConnection connection = connectionManager.requestConnection(route, null).get(REQUEST_TIMEOUT, TimeUnit.MILLISECONDS);
+		boolean reusable = false;
+		try{
+			if(!connection.isOpen()){
+				HttpClientContext context = HttpClientContext.create();
+				connectionManager.connect(connection, route, REQUEST_TIMEOUT, context);
+				connectionManager.routeComplete(connection, route, context);
+			}
+			reusable = true;
+		}finally {
+			if(!reusable){
+				connection.close();
+			}
+			connectionManager.releaseConnection(connection, null, reusable ? HTTP_IDLE_TIMEOUT : 0, TimeUnit.MILLISECONDS);
+		}
+	}
+
+	@NotNull
+	private static PoolingHttpClientConnectionManager createConnectionManager(){
+		Registry<ConnectionSocketFactory> socketFactories = RegistryBuilder.<ConnectionSocketFactory>create()
+			.register("http", TracingSocketFactory.INSTANCE)
+			.register("https", SSLConnectionSocketFactory.getSocketFactory())
+			.build();
+		PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager(socketFactories);
+		connectionManager.setMaxTotal(HTTP_MAX_CONNECTIONS);
+		connectionManager.setDefaultMaxPerRoute(HTTP_MAX_CONNECTIONS_PER_ROUTE);
+		connectionManager.setValidateAfterInactivity(HTTP_VALIDATE_AFTER_INACTIVITY);
+		return connectionManager;
+	}
+
+	@NotNull
+	private static CloseableHttpClient createClient(@NotNull PoolingHttpClientConnectionManager connectionManager){
 		HttpClientBuilder builder = HttpClients.custom();
 
-		return builder.setDefaultRequestConfig(
+		// retries are up to RETRY_POLICY, the client's own would multiply them unseen
+		builder.disableAutomaticRetries();
+		// responses are decoded by DecodingEntity, which sees the compressed bytes too
+		builder.disableContentCompression();
+		builder.evictIdleConnections(HTTP_IDLE_TIMEOUT, TimeUnit.MILLISECONDS);
+
+		return builder.setConnectionManager(connectionManager).setDefaultRequestConfig(
 			RequestConfig.custom().
 				setSocketTimeout(REQUEST_TIMEOUT).
 				setConnectTimeout(REQUEST_TIMEOUT).
@@ -41,26 +160,194 @@ public class TranslatorUtil {
 		).build();
 	}
 
-	public static String fetchInfo(String query, TranslatorEx translator){
-		final CloseableHttpClient client = TranslatorUtil.createClient();
+	/**
+	 * Fetches the translation, retrying connection failures, <code>429</code> and <code>5xx</code> responses as
+	 * {@link #RETRY_POLICY} allows. Answers of the translator itself, e.g. Youdao's invalid key (50) or unsupported
+	 * language (40), are returned as they are: asking again would only get the same answer. An error is recorded
+	 * once for the failure finally returned, attempts that a retry recovered from are only counted as retries.
+	 *
+	 * @return the translation, a {@link TranslationResult#FAILURE} telling why there is none, or <code>null</code>
+	 * if the translator found nothing
+	 */
+	@Nullable
+	public static TranslationResult fetchResult(String query, TranslatorEx translator){
+		final URI queryUrl;
 		try{
-			final URI queryUrl = translator.createUrl(query);
-			HttpGet httpGet = new HttpGet(queryUrl);
-			HttpResponse response = client.execute(httpGet);
-			int status = response.getStatusLine().getStatusCode();
-			if(status >= 200 && status < 300){
-				HttpEntity resEntity = response.getEntity();
-				return translator.generateSuccess(resEntity);
-			}else{
-				return translator.generateFail(response);
+			queryUrl = translator.createUrl(query);
+		}catch (URISyntaxException e){
+			LOG.warn(e);
+			return TranslationResult.failure(query, e.getMessage());
+		}
+
+		checkSettingsVersion();
+		TranslatorMetrics metrics = TranslationMetrics.forTranslator(translator);
+		// the bulkhead gives up at a deadline counted from when the caller asked, retries must fit before it
+		long deadline = TranslatorBulkheads.getDeadline();
+		RETRY_POLICY.getBudget().recordRequest();
+
+		for(int attempt = 1; ; attempt++){
+			TranslationResult failure;
+			String error;
+			long retryAfter = 0;
+			HttpGet request = createRequest(queryUrl, deadline);
+			if(request == null){
+				// e.g. after a long wait on the bulkhead, the bulkhead has given up on this fetch already
+				metrics.recordError("deadline");
+				return TranslationResult.failure(query, "Timed out");
 			}
-		}catch (Exception ignore){
-		}finally {
+			try(CloseableHttpResponse response = getClient().execute(request)){
+				TranslationTracer.mark(TraceStage.FIRST_BYTE);
+				int status = response.getStatusLine().getStatusCode();
+				if(status >= 200 && status < 300 && response.getEntity() != null){
+					DecodingEntity entity = new DecodingEntity(response.getEntity(), MAX_RESPONSE_SIZE);
+					TranslationResult result;
+					try{
+						result = translator.generateResult(query, entity);
+						// the rest, if any, must be read for the connection to be reused
+						EntityUtils.consume(entity);
+					}finally {
+						metrics.recordResponseBytes(entity.getWireBytes(), entity.getDecodedBytes());
+					}
+					if(result != null && attempt > 1){
+						metrics.recordRetryRecovery();
+					}
+					return result;
+				}
+				error = "http-" + status;
+				failure = TranslationResult.failure(query, translator.generateFail(response));
+				if(!isRetryable(status)){
+					metrics.recordError(error);
+					return failure;
+				}
+				retryAfter = getRetryAfterMillis(response);
+			}catch (IOException e){
+				error = e.getClass().getSimpleName();
+				failure = TranslationResult.failure(query, e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName());
+				if(!isRetryable(e)){
+					LOG.debug(e);
+					metrics.recordError(error);
+					return failure;
+				}
+			}catch (RuntimeException e){
+				// e.g. a malformed response body, it will not parse any better the next time
+				metrics.recordError(e.getClass().getSimpleName());
+				LOG.warn("Cannot read the response of " + translator.getTitle(), e);
+				return TranslationResult.failure(query, e.getMessage());
+			}
+
+			long delay = Math.max(RETRY_POLICY.getBackoffMillis(attempt), retryAfter);
+			String abandoned = null;
+			if(attempt >= RETRY_POLICY.getMaxAttempts()){
+				abandoned = "attempts";
+			}else if(!RETRY_POLICY.fitsDeadline(delay, deadline)){
+				abandoned = "deadline";
+			}else if(!RETRY_POLICY.getBudget().tryAcquire()){
+				abandoned = "budget";
+			}
+			if(abandoned != null){
+				metrics.recordRetryAbandoned(abandoned);
+				metrics.recordError(error);
+				return failure;
+			}
+			metrics.recordRetry();
+			LOG.debug("Retrying " + translator.getTitle() + " in " + delay + "ms after: " + failure.getErrorMessage());
 			try{
-				client.close();
-			}catch (IOException ignore){
+				Thread.sleep(delay);
+			}catch (InterruptedException e){
+				Thread.currentThread().interrupt();
+				metrics.recordError(error);
+				return failure;
 			}
 		}
-		return null;
+	}
+
+	/**
+	 * Settings may point translators elsewhere, connections opened before they changed are not reused.
+	 */
+	private static void checkSettingsVersion() {
+		long version = TranslationSettingsSnapshot.current().getVersion();
+		if(version != ourPoolSettingsVersion){
+			if(ourPoolSettingsVersion != 0){
+				ClientHolder.CONNECTION_MANAGER.closeIdleConnections(0, TimeUnit.MILLISECONDS);
+			}
+			ourPoolSettingsVersion = version;
+		}
+	}
+
+	/**
+	 * @return the request with timeouts ending by the deadline, <code>null</code> if it has passed: HttpClient takes
+	 * a zero timeout as no timeout at all, so the remaining time is never rounded down to it
+	 */
+	@Nullable
+	static HttpGet createRequest(@NotNull URI url, long deadlineNanos) {
+		long remaining = deadlineNanos - System.nanoTime();
+		if(remaining <= 0){
+			return null;
+		}
+		int timeout = (int)Math.max(1, Math.min(REQUEST_TIMEOUT, TimeUnit.NANOSECONDS.toMillis(remaining)));
+		HttpGet httpGet = new HttpGet(url);
+		httpGet.setHeader(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate");
+		httpGet.setConfig(RequestConfig.custom().
+			setSocketTimeout(timeout).
+			setConnectTimeout(timeout).
+			setConnectionRequestTimeout(timeout).
+			build());
+		return httpGet;
+	}
+
+	/**
+	 * Too many requests or a server side error, which may well be gone by the next attempt.
+	 */
+	static boolean isRetryable(int status) {
+		return status == 429 || status >= 500 && status != 501 && status != 505;
+	}
+
+	/**
+	 * Resets, refused connections and timeouts are transient; an unknown host, a TLS failure, an oversized
+	 * response or an interrupted thread are not.
+	 */
+	static boolean isRetryable(@NotNull IOException e) {
+		if(e instanceof UnknownHostException || e instanceof SSLException || e instanceof DecodingEntity.TooLargeException){
+			return false;
+		}
+		if(e instanceof InterruptedIOException && !(e instanceof SocketTimeoutException || e instanceof ConnectTimeoutException)){
+			return false;
+		}
+		return !Thread.currentThread().isInterrupted();
+	}
+
+	/**
+	 * @return the delay a <code>429</code> or <code>503</code> response asks for in its <code>Retry-After</code> header, or 0
+	 */
+	private static long getRetryAfterMillis(@NotNull HttpResponse response) {
+		Header header = response.getFirstHeader("Retry-After");
+		if(header != null){
+			try{
+				return TimeUnit.SECONDS.toMillis(Long.parseLong(header.getValue().trim()));
+			}catch (NumberFormatException ignore){
+				// an HTTP date, rare enough to fall back to the backoff
+			}
+		}
+		return 0;
+	}
+
+	private static class ClientHolder {
+		private static final PoolingHttpClientConnectionManager CONNECTION_MANAGER = createConnectionManager();
+		private static final CloseableHttpClient CLIENT = createClient(CONNECTION_MANAGER);
+	}
+
+	/**
+	 * Marks {@link TraceStage#HTTP_CONNECT} once the socket is connected.
+	 */
+	private static class TracingSocketFactory extends PlainConnectionSocketFactory {
+		private static final TracingSocketFactory INSTANCE = new TracingSocketFactory();
+
+		@Override
+		public Socket connectSocket(int connectTimeout, Socket socket, HttpHost host, InetSocketAddress remoteAddress,
+		                            InetSocketAddress localAddress, HttpContext context) throws IOException {
+			Socket connected = super.connectSocket(connectTimeout, socket, host, remoteAddress, localAddress, context);
+			TranslationTracer.mark(TraceStage.HTTP_CONNECT);
+			return connected;
+		}
 	}
 }
@@ -0,0 +1,62 @@
+/*
+ * Copyright 2016 Yuyou Chow
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intellij.translation.translator;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+
+/**
+ * Url with everything but the query fixed in advance, so building a request only appends the encoded query.
+ */
+final class UrlTemplate {
+	/** buffers growing beyond this are not kept for the next url */
+	private static final int MAX_BUFFER_SIZE = 4096;
+	private static final ThreadLocal<StringBuilder> ourBuffer = ThreadLocal.withInitial(() -> new StringBuilder(256));
+
+	private final String myPrefix;
+	private final String mySuffix;
+
+	UrlTemplate(@NotNull String prefix, @NotNull String suffix) {
+		myPrefix = prefix;
+		mySuffix = suffix;
+	}
+
+	@NotNull
+	String expand(@NotNull CharSequence query) {
+		StringBuilder buffer = ourBuffer.get();
+		buffer.setLength(0);
+		buffer.append(myPrefix);
+		PercentEncoder.appendEncoded(query, buffer);
+		buffer.append(mySuffix);
+		String url = buffer.toString();
+		if(buffer.capacity() > MAX_BUFFER_SIZE){
+			ourBuffer.remove();
+		}
+		return url;
+	}
+
+	@NotNull
+	URI expandUri(@NotNull CharSequence query) throws URISyntaxException {
+		return new URI(expand(query));
+	}
+
+	@Override
+	public String toString() {
+		return myPrefix + "{query}" + mySuffix;
+	}
+}
@@ -15,8 +15,9 @@
  */
 package com.intellij.translation.translator;
 
-import com.google.common.base.Joiner;
-
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
@@ -46,6 +47,14 @@ public class YoudaoTranslation {
 	private Map<String, Object> basic;
 	private List<Map<String, Object>> web;
 
+	String getQuery() {
+		return query;
+	}
+
+	int getErrorCode() {
+		return errorCode;
+	}
+
 	private String getErrorMessage(){
 		switch (errorCode){
 			case SUCCESS:
@@ -65,109 +74,46 @@ public class YoudaoTranslation {
 		}
 	}
 
-	private String getPhonetic() {
-		if (basic == null) {
-			return null;
-		}
-		String result = null;
-		String us_phonetic = (String) basic.get(US_PHONETIC);
-		String uk_phonetic = (String) basic.get(UK_PHONETIC);
-		if (us_phonetic == null && uk_phonetic == null) {
-			String phonetic = (String) basic.get(PHONETIC);
-			if(phonetic != null){
-				result = "<span class=\"pronounce\"> 拼音：<span class=\"phonetic\">[" + (String) basic.get(PHONETIC) + "]</span></span>";
-			}
-		} else {
-			if (us_phonetic != null) {
-				result = "<span class=\"pronounce\"> 美式：<span class=\"phonetic\">[" + us_phonetic + "]</span></span>";
-			}
-			if (uk_phonetic != null) {
-				if (result == null) {
-					result = "";
-				}
-				result = result + "<span class=\"pronounce\"> 英式：<span class=\"phonetic\">[" + uk_phonetic + "]</span></span>";
+	/**
+	 * Drops the loosely typed json maps in favour of a {@link TranslationResult}.
+	 */
+	TranslationResult toResult() {
+		String phonetic = null, usPhonetic = null, ukPhonetic = null;
+		List<String> explains = Collections.emptyList();
+		if(basic != null){
+			phonetic = (String) basic.get(PHONETIC);
+			usPhonetic = (String) basic.get(US_PHONETIC);
+			ukPhonetic = (String) basic.get(UK_PHONETIC);
+			List<String> basicExplains = (List<String>) basic.get(EXPLAINS);
+			if(basicExplains != null){
+				explains = new ArrayList<>(basicExplains);
 			}
 		}
-		return result;
-	}
-
-	private String getExplains() {
-		if (basic == null) {
-			return null;
-		}
-		String result = null;
-		List<String> explains = (List<String>) basic.get(EXPLAINS);
-		if (explains.size() > 0) {
-			result = "";
-		}
-		for (String explain : explains) {
-			result += String.format("<li>%s</li>", explain);
-		}
-		return result;
-	}
-
-	private String getTranslationResult() {
-		if (translation == null) {
-			return null;
-		}
-		String result = null;
-		if (translation.length > 0) {
-			result = "";
-		}
-		for (String r : translation) {
-			result += (r + ";");
-		}
-		return result;
-	}
-
-	private String getWebResult() {
-		if (web == null) {
-			return null;
-		}
-		String result = null;
-		if (web.size() > 0) {
-			result = "";
-		}
-		for (Map<String, Object> map : web) {
-			String key = (String) map.get("key");
-			List<String> value = (List<String>) map.get("value");
-			result += String.format("<li>%s : %s</li>", key, Joiner.on(",").skipNulls().join(value));
-		}
-		return result;
-	}
-
-	@Override
-	public String toString() {
-		String result = null;
-		if (errorCode != SUCCESS) {
-			result = "错误代码：" + errorCode + "\n" + getErrorMessage();
-		} else {
-			String translation = getTranslationResult();
-			if (translation != null) {
-				translation = translation.substring(0, translation.length() - 1);
-				result = String.format("<div class=\"trans\">%s : %s</div>", query, translation);
 
-				if (getPhonetic() != null) {
-					result += String.format("<div class=\"baav\">%s</div>", getPhonetic());
-				}
-				if (getExplains() != null) {
-					result += String.format("<div class=\"trans-container\"><ul>%s</ul></div>", getExplains());;
+		List<TranslationResult.WebEntry> webEntries = Collections.emptyList();
+		if(web != null){
+			webEntries = new ArrayList<>(web.size());
+			for (Map<String, Object> map : web) {
+				String key = (String) map.get("key");
+				List<String> value = (List<String>) map.get("value");
+				if(key != null){
+					webEntries.add(new TranslationResult.WebEntry(key, value != null ? withoutNulls(value) : Collections.emptyList()));
 				}
 			}
+		}
 
-			if (getWebResult() != null) {
-				if (result == null) {
-					result = "";
-				}
-				result += "<div class=\"web-trans\">网络释义</div>";
+		return new TranslationResult(query != null ? query : "", errorCode, errorCode != SUCCESS ? getErrorMessage() : null,
+			translation != null ? withoutNulls(Arrays.asList(translation)) : Collections.emptyList(),
+			phonetic, usPhonetic, ukPhonetic, explains, webEntries);
+	}
 
-				result += String.format("<div class=\"trans-container\"><ul>%s</ul></div>", getWebResult());
+	private static List<String> withoutNulls(List<String> values) {
+		List<String> result = new ArrayList<>(values.size());
+		for(String value : values){
+			if(value != null){
+				result.add(value);
 			}
 		}
-
-		if (result == null) {
-			result = "<h3>你选的内容：<span>" + query + "</span> 抱歉,翻译不了...</h3>";
-		}
 		return result;
 	}
 }
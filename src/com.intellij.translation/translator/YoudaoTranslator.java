@@ -17,28 +17,34 @@ package com.intellij.translation.translator;
 
 import com.google.gson.Gson;
 import com.intellij.ide.BrowserUtil;
+import com.intellij.translation.TranslationRenderer;
+import com.intellij.translation.diagnostic.TraceStage;
+import com.intellij.translation.diagnostic.TranslationMetrics;
+import com.intellij.translation.diagnostic.TranslationTracer;
 import com.intellij.translation.icons.TranslationIcons;
-import com.intellij.translation.settings.TranslationSettings;
-import com.intellij.util.ResourceUtil;
+import com.intellij.translation.settings.TranslationSettingsSnapshot;
 import org.apache.http.HttpEntity;
 import org.apache.http.HttpResponse;
 import org.apache.http.client.config.RequestConfig;
 import org.apache.http.client.methods.HttpGet;
-import org.apache.http.client.utils.URIBuilder;
 import org.apache.http.client.utils.URLEncodedUtils;
+import org.apache.http.entity.ContentType;
 import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.http.impl.client.HttpClientBuilder;
 import org.apache.http.impl.client.HttpClients;
 import org.apache.http.util.EntityUtils;
+import org.jetbrains.annotations.NonNls;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import javax.swing.*;
 import java.io.IOException;
-import java.io.UnsupportedEncodingException;
+import java.io.InputStreamReader;
+import java.io.Reader;
 import java.net.URI;
 import java.net.URISyntaxException;
-import java.net.URLEncoder;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 
 import static com.intellij.translation.TranslationConstants.REQUEST_TIMEOUT;
 
@@ -49,17 +55,15 @@ import static com.intellij.translation.TranslationConstants.REQUEST_TIMEOUT;
  * @author loucyin
  */
 public class YoudaoTranslator extends TranslatorEx{
-	static final String HTTP_STYLE;
-
-	static {
-		String css;
-		try{
-			css = ResourceUtil.loadText(ResourceUtil.getResource(Translator.class, "/css", "youdao.css"));
-		}catch (IOException e){
-			throw (AssertionError) new AssertionError().initCause(e);
-		}
-		HTTP_STYLE = "<style type=\"text/css\">\n" + css + "</style>\n";
-	}
+	/**
+	 * Overrides the openapi host, e.g. <code>-Dtranslation.youdao.host=localhost:8089</code> to run against a local stand-in server.
+	 */
+	@NonNls public static final String HOST_PROPERTY = "translation.youdao.host";
+	@NonNls private static final String DEFAULT_HOST = "fanyi.youdao.com";
+
+	private static final UrlTemplate EXTERNAL_URL = new UrlTemplate("http://dict.youdao.com/w/", "/#keyfrom=dict2.top");
+
+	private volatile RequestTemplate myRequestTemplate;
 
 	@NotNull
 	@Override
@@ -76,43 +80,95 @@ public class YoudaoTranslator extends TranslatorEx{
 	@Nullable
 	@Override
 	public String fetchInfo(String query) {
-		return TranslatorUtil.fetchInfo(query, this);
+		TranslationResult result = fetchResult(query);
+		return result != null ? TranslationRenderer.render(result) : null;
+	}
+
+	@Nullable
+	@Override
+	public TranslationResult fetchResult(String query) {
+		return TranslatorUtil.fetchResult(query, this);
 	}
 
 	@Nullable
 	@Override
 	public String getExternalUrl(String query) {
-		try{
-			String finalQuery = URLEncoder.encode(query, "UTF-8");
-			return "http://dict.youdao.com/w/"+ finalQuery + "/#keyfrom=dict2.top";
-		} catch (UnsupportedEncodingException ignore) {
-		}
-		return null;
+		return EXTERNAL_URL.expand(query);
 	}
 
+	/**
+	 * The request template is rebuilt only when the settings or the host change.
+	 */
 	@NotNull
 	@Override
 	public URI createUrl(String query) throws URISyntaxException {
-		URIBuilder builder = new URIBuilder();
-		builder.setScheme("http")
-			.setHost("fanyi.youdao.com")
-			.setPath("/openapi.do")
-			.addParameter("keyfrom", TranslationSettings.getInstance().getYoudaoKeyfrom())
-			.addParameter("key", TranslationSettings.getInstance().getYoudaoApiKey())
-			.addParameter("type", "data")
-			.addParameter("version", "1.1")
-			.addParameter("doctype", "json")
-			.addParameter("q", query);
-		return builder.build();
+		TranslationSettingsSnapshot settings = TranslationSettingsSnapshot.current();
+		String host = System.getProperty(HOST_PROPERTY, DEFAULT_HOST);
+		RequestTemplate template = myRequestTemplate;
+		if(template == null || template.mySettingsVersion != settings.getVersion() || !template.myHost.equals(host)){
+			template = new RequestTemplate(settings.getVersion(), host,
+				createTemplate(host, settings.getYoudaoKeyfrom(), settings.getYoudaoApiKey()));
+			myRequestTemplate = template;
+		}
+		return template.myTemplate.expandUri(query);
+	}
+
+	@NotNull
+	static URI createUrl(String query, String keyfrom, String apiKey) throws URISyntaxException {
+		return createTemplate(System.getProperty(HOST_PROPERTY, DEFAULT_HOST), keyfrom, apiKey).expandUri(query);
+	}
+
+	@NotNull
+	static UrlTemplate createTemplate(@NotNull String host, @Nullable String keyfrom, @Nullable String apiKey) {
+		String prefix = "http://" + host + "/openapi.do" +
+			"?" + parameter("keyfrom", keyfrom) +
+			"&" + parameter("key", apiKey) +
+			"&type=data&version=1.1&doctype=json&q=";
+		return new UrlTemplate(prefix, "");
+	}
+
+	/**
+	 * A missing value leaves the bare name, as {@link org.apache.http.client.utils.URIBuilder} did.
+	 */
+	@NotNull
+	private static String parameter(@NotNull String name, @Nullable String value) {
+		return value != null ? name + "=" + PercentEncoder.encode(value) : name;
 	}
 
 	@Nullable
 	@Override
 	public String generateSuccess(HttpEntity entity) throws IOException {
-		String json = EntityUtils.toString(entity, "UTF-8");
-		Gson gson = new Gson();
-		YoudaoTranslation result = gson.fromJson(json, YoudaoTranslation.class);
-		return decorateHtml(result.toString());
+		return TranslationRenderer.render(parse(entity));
+	}
+
+	@NotNull
+	@Override
+	public TranslationResult generateResult(String query, HttpEntity entity) throws IOException {
+		return parse(entity);
+	}
+
+	/**
+	 * Parses the body while it is read, without holding all of it as a string first.
+	 */
+	@NotNull
+	private TranslationResult parse(HttpEntity entity) throws IOException {
+		ContentType contentType = ContentType.get(entity);
+		Charset charset = contentType != null && contentType.getCharset() != null ? contentType.getCharset() : StandardCharsets.UTF_8;
+		YoudaoTranslation result;
+		try(Reader reader = new InputStreamReader(entity.getContent(), charset)){
+			result = new Gson().fromJson(reader, YoudaoTranslation.class);
+			// the parser stops at the closing brace, reaching the end of the body marks it read
+			while(reader.read() != -1){
+			}
+		}
+		TranslationTracer.mark(TraceStage.JSON_PARSE);
+		if(result == null){
+			throw new IOException("Empty response");
+		}
+		if(result.getErrorCode() != 0){
+			TranslationMetrics.forTranslator(this).recordError("youdao-" + result.getErrorCode());
+		}
+		return result.toResult();
 	}
 
 	@Nullable
@@ -121,8 +177,15 @@ public class YoudaoTranslator extends TranslatorEx{
 		return response.getStatusLine().getReasonPhrase();
 	}
 
-	@NotNull
-	private static String decorateHtml(@NotNull String retrievedHtml) {
-		return "<html>" + HTTP_STYLE + "<body>" + retrievedHtml + "</body></html>";
+	private static final class RequestTemplate {
+		private final long mySettingsVersion;
+		private final String myHost;
+		private final UrlTemplate myTemplate;
+
+		private RequestTemplate(long settingsVersion, @NotNull String host, @NotNull UrlTemplate template) {
+			mySettingsVersion = settingsVersion;
+			myHost = host;
+			myTemplate = template;
+		}
 	}
 }
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2016 Yuyou Chow
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intellij.translation.cache;
+
+import com.intellij.translation.translator.TranslationResult;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+public class SharedTranslationCacheTest {
+	private static final String TRANSLATOR = "test.Translator";
+
+	private File myFile;
+
+	@Before
+	public void setUp() throws IOException {
+		myFile = File.createTempFile("shared-cache", ".bin");
+		myFile.deleteOnExit();
+	}
+
+	@After
+	public void tearDown() {
+		//noinspection ResultOfMethodCallIgnored
+		myFile.delete();
+	}
+
+	@Test
+	public void testPutAndGet() throws IOException {
+		SharedTranslationCache cache = new SharedTranslationCache(myFile);
+		cache.put(" query ", TRANSLATOR, TranslationResult.html("query", "<b>result</b>"));
+		SharedTranslationCache.Entry entry = cache.get("query");
+		assertNotNull(entry);
+		assertEquals(TRANSLATOR, entry.getTranslatorClass());
+		assertEquals("<b>result</b>", entry.getResult().getHtml());
+		assertNull(cache.get("other"));
+
+		assertNotNull(new SharedTranslationCache(myFile).get("query"));
+	}
+
+	@Test
+	public void testClear() throws IOException {
+		SharedTranslationCache cache = new SharedTranslationCache(myFile);
+		cache.put("query", TRANSLATOR, TranslationResult.html("query", "result"));
+		cache.clear();
+		assertNull(cache.get("query"));
+		assertNull(new SharedTranslationCache(myFile).get("query"));
+
+		cache.put("other", TRANSLATOR, TranslationResult.html("other", "result"));
+		assertNotNull(cache.get("other"));
+	}
+
+	@Test
+	public void testRecoveryIgnoresRecordsFromBeforeWrapAround() throws IOException {
+		SharedTranslationCache cache = new SharedTranslationCache(myFile);
+		// equally sized records, so the stale ones line up right behind the first record after the cache starts over
+		int last = 0;
+		while(last == 0 || cache.get(createQuery(0)) != null){
+			cache.put(createQuery(last), TRANSLATOR, TranslationResult.html(createQuery(last), "result"));
+			last++;
+		}
+		String wrapped = createQuery(last - 1);
+		assertNotNull(cache.get(wrapped));
+		assertNull(cache.get(createQuery(1)));
+
+		// a writer dying mid-append leaves the sequence odd, the next instance rebuilds the index from the records
+		try(RandomAccessFile file = new RandomAccessFile(myFile, "rw")){
+			file.seek(SharedTranslationCache.SEQUENCE_OFFSET);
+			long sequence = file.readLong();
+			file.seek(SharedTranslationCache.SEQUENCE_OFFSET);
+			file.writeLong(sequence | 1);
+		}
+		SharedTranslationCache recovered = new SharedTranslationCache(myFile);
+		assertNotNull(recovered.get(wrapped));
+		assertNull("stale record came back", recovered.get(createQuery(1)));
+		assertNull("stale record came back", recovered.get(createQuery(last - 2)));
+	}
+
+	private static String createQuery(int index) {
+		return String.format("query-%06d", index);
+	}
+}
@@ -0,0 +1,161 @@
+/*
+ * Copyright 2016 Yuyou Chow
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intellij.translation.cache;
+
+import com.intellij.translation.translator.TranslationResult;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class TranslationResultCodecTest {
+	@Test
+	public void testRoundTrip() throws IOException {
+		TranslationResult result = new TranslationResult("test", TranslationResult.SUCCESS, null,
+				Arrays.asList("\u6d4b\u8bd5", "\u8bd5\u9a8c"), "test", "tes", null,
+				Collections.singletonList("n. \u6d4b\u8bd5"),
+				Collections.singletonList(new TranslationResult.WebEntry("test case", Arrays.asList("\u6d4b\u8bd5\u7528\u4f8b", "test"))));
+		assertSameResult(result, roundTrip(result, true));
+		assertSameResult(result, roundTrip(result, false));
+	}
+
+	@Test
+	public void testRoundTripHtmlAndFailure() throws IOException {
+		TranslationResult html = TranslationResult.html("query", "<b>\u7ed3\u679c</b>");
+		assertSameResult(html, roundTrip(html, true));
+		TranslationResult failure = TranslationResult.failure("query", "Connection refused");
+		assertSameResult(failure, roundTrip(failure, true));
+	}
+
+	@Test
+	public void testRoundTripCompressed() throws IOException {
+		TranslationResult result = createLargeResult();
+		byte[] compressed = TranslationResultCodec.encode(result, true);
+		byte[] plain = TranslationResultCodec.encode(result, false);
+		assertTrue("large record should be compressed", compressed.length < plain.length);
+		assertSameResult(result, TranslationResultCodec.decode(ByteBuffer.wrap(compressed)));
+	}
+
+	@Test
+	public void testDecodeLeavesPositionAfterRecord() throws IOException {
+		byte[] first = TranslationResultCodec.encode(createLargeResult());
+		byte[] second = TranslationResultCodec.encode(TranslationResult.html("q", "h"));
+		ByteBuffer buffer = ByteBuffer.allocate(first.length + second.length);
+		buffer.put(first).put(second).flip();
+		TranslationResultCodec.decode(buffer);
+		assertEquals(first.length, buffer.position());
+		assertEquals("q", TranslationResultCodec.decode(buffer).getQuery());
+		assertEquals(0, buffer.remaining());
+	}
+
+	@Test
+	public void testTruncatedRecordIsRejected() {
+		for(boolean compress : new boolean[]{true, false}){
+			byte[] record = TranslationResultCodec.encode(createLargeResult(), compress);
+			for(int length = 0; length < record.length; length++){
+				assertRejected(Arrays.copyOf(record, length));
+			}
+		}
+	}
+
+	@Test
+	public void testDamagedRecordIsRejectedOrDecoded() {
+		Random random = new Random(42);
+		for(boolean compress : new boolean[]{true, false}){
+			byte[] record = TranslationResultCodec.encode(createLargeResult(), compress);
+			for(int i = 0; i < 5000; i++){
+				byte[] damaged = record.clone();
+				for(int flips = 1 + random.nextInt(3); flips > 0; flips--){
+					damaged[random.nextInt(damaged.length)] ^= 1 << random.nextInt(8);
+				}
+				try{
+					TranslationResultCodec.decode(ByteBuffer.wrap(damaged));
+				}catch (IOException ignored){
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testNegativeRawLengthIsRejected() {
+		assertRejected(createCompressedHeader(-1, 4));
+	}
+
+	@Test
+	public void testHugeRawLengthIsRejected() {
+		assertRejected(createCompressedHeader(Integer.MAX_VALUE, 4));
+		assertRejected(createCompressedHeader(BlockCompressor.MAX_RAW_LENGTH + 1, 4));
+		assertRejected(createCompressedHeader(4 * 255 + 65, 4));
+	}
+
+	private static TranslationResult roundTrip(TranslationResult result, boolean compress) throws IOException {
+		return TranslationResultCodec.decode(ByteBuffer.wrap(TranslationResultCodec.encode(result, compress)));
+	}
+
+	private static TranslationResult createLargeResult() {
+		List<String> explains = new ArrayList<>();
+		List<TranslationResult.WebEntry> webEntries = new ArrayList<>();
+		for(int i = 0; i < 20; i++){
+			explains.add("n. explanation number " + i + " \u89e3\u91ca");
+			webEntries.add(new TranslationResult.WebEntry("translation " + i, Arrays.asList("\u7ffb\u8bd1 " + i, "translation")));
+		}
+		return new TranslationResult("translation", TranslationResult.SUCCESS, null, Collections.singletonList("\u7ffb\u8bd1"),
+				"tr\u00e6ns'lei\u0283\u0259n", null, null, explains, webEntries);
+	}
+
+	private static byte[] createCompressedHeader(int rawLength, int bodyLength) {
+		ByteBuffer buffer = ByteBuffer.allocate(2 + 5 + 5 + bodyLength);
+		buffer.put((byte)TranslationResultCodec.VERSION).put((byte)1);
+		TranslationResultCodec.writeVarint(buffer, bodyLength);
+		TranslationResultCodec.writeVarint(buffer, rawLength);
+		buffer.put(new byte[bodyLength]);
+		return Arrays.copyOf(buffer.array(), buffer.position());
+	}
+
+	private static void assertRejected(byte[] record) {
+		try{
+			TranslationResultCodec.decode(ByteBuffer.wrap(record));
+			fail("damaged record of " + record.length + " bytes was decoded");
+		}catch (IOException ignored){
+		}
+	}
+
+	private static void assertSameResult(TranslationResult expected, TranslationResult actual) {
+		assertEquals(expected.getQuery(), actual.getQuery());
+		assertEquals(expected.getErrorCode(), actual.getErrorCode());
+		assertEquals(expected.getErrorMessage(), actual.getErrorMessage());
+		assertEquals(expected.getTranslations(), actual.getTranslations());
+		assertEquals(expected.getPhonetic(), actual.getPhonetic());
+		assertEquals(expected.getUsPhonetic(), actual.getUsPhonetic());
+		assertEquals(expected.getUkPhonetic(), actual.getUkPhonetic());
+		assertEquals(expected.getExplains(), actual.getExplains());
+		assertEquals(expected.getHtml(), actual.getHtml());
+		assertEquals(expected.getWebEntries().size(), actual.getWebEntries().size());
+		for(int i = 0; i < expected.getWebEntries().size(); i++){
+			assertEquals(expected.getWebEntries().get(i).getKey(), actual.getWebEntries().get(i).getKey());
+			assertEquals(expected.getWebEntries().get(i).getValues(), actual.getWebEntries().get(i).getValues());
+		}
+	}
+}
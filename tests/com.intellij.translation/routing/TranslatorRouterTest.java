@@ -0,0 +1,94 @@
+/*
+ * Copyright 2016 Yuyou Chow
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intellij.translation.routing;
+
+import com.intellij.translation.translator.TranslationResult;
+import com.intellij.translation.translator.Translator;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.junit.Test;
+
+import javax.swing.*;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TranslatorRouterTest {
+	/** Youdao's answer for an invalid key */
+	private static final int INVALID_KEY = 50;
+
+	@Test
+	public void testErrorCodeIsAFailure() {
+		Translator translator = new MisconfiguredTranslator();
+		TranslatorHealth health = TranslatorRouter.getHealth(translator);
+		double initialLatency = health.getLatencyMillis();
+		double initialScore = health.getScore();
+
+		TranslationResult error = new TranslationResult("query", INVALID_KEY, "Invalid key", Collections.emptyList(),
+			null, null, null, Collections.emptyList(), Collections.emptyList());
+		for(int i = 0; i < 5; i++){
+			TranslatorRouter.record(translator, error, TimeUnit.MILLISECONDS.toNanos(1));
+		}
+
+		assertEquals(initialLatency, health.getLatencyMillis(), 0);
+		assertTrue("fast errors must not improve the score", health.getScore() > initialScore);
+		assertEquals(CircuitBreaker.State.OPEN, health.getCircuitState());
+	}
+
+	@Test
+	public void testSuccessfulResultIsASuccess() {
+		Translator translator = new WorkingTranslator();
+		TranslatorHealth health = TranslatorRouter.getHealth(translator);
+		double initialLatency = health.getLatencyMillis();
+
+		TranslatorRouter.record(translator, TranslationResult.html("query", "<b>result</b>"), TimeUnit.MILLISECONDS.toNanos(1));
+
+		assertTrue(health.getLatencyMillis() < initialLatency);
+		assertEquals(1, health.getSuccessRate(), 0);
+		assertEquals(CircuitBreaker.State.CLOSED, health.getCircuitState());
+	}
+
+	private static class WorkingTranslator implements Translator {
+		@NotNull
+		@Override
+		public String getTitle() {
+			return getClass().getSimpleName();
+		}
+
+		@NotNull
+		@Override
+		public Icon getIcon() {
+			return new ImageIcon();
+		}
+
+		@Nullable
+		@Override
+		public String fetchInfo(String query) {
+			return null;
+		}
+
+		@Nullable
+		@Override
+		public String getExternalUrl(String query) {
+			return null;
+		}
+	}
+
+	private static class MisconfiguredTranslator extends WorkingTranslator {
+	}
+}
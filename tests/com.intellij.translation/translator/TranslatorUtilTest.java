@@ -0,0 +1,60 @@
+/*
+ * Copyright 2016 Yuyou Chow
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intellij.translation.translator;
+
+import com.intellij.translation.TranslationConstants;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.HttpGet;
+import org.junit.Test;
+
+import java.net.URI;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+public class TranslatorUtilTest {
+	private static final URI URL = URI.create("http://fanyi.youdao.com/openapi.do?q=test");
+
+	@Test
+	public void testExpiredDeadlineCreatesNoRequest() {
+		assertNull(TranslatorUtil.createRequest(URL, System.nanoTime() - TimeUnit.SECONDS.toNanos(1)));
+		assertNull(TranslatorUtil.createRequest(URL, System.nanoTime()));
+	}
+
+	@Test
+	public void testAlmostExpiredDeadlineKeepsATimeout() {
+		HttpGet request = TranslatorUtil.createRequest(URL, System.nanoTime() + TimeUnit.MICROSECONDS.toNanos(500));
+		if(request != null){ // null only if the half millisecond already passed
+			assertTimeouts(request, 1);
+		}
+	}
+
+	@Test
+	public void testTimeoutIsCappedByRequestTimeout() {
+		HttpGet request = TranslatorUtil.createRequest(URL, System.nanoTime() + TimeUnit.HOURS.toNanos(1));
+		assertNotNull(request);
+		assertTimeouts(request, TranslationConstants.REQUEST_TIMEOUT);
+	}
+
+	private static void assertTimeouts(HttpGet request, int expected) {
+		RequestConfig config = request.getConfig();
+		assertEquals(expected, config.getSocketTimeout());
+		assertEquals(expected, config.getConnectTimeout());
+		assertEquals(expected, config.getConnectionRequestTimeout());
+	}
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright 2016 Yuyou Chow
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intellij.translation.translator;
+
+import org.apache.http.client.utils.URIBuilder;
+import org.junit.Test;
+
+import java.io.UnsupportedEncodingException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URLEncoder;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class UrlTemplateTest {
+	private static final String HOST = "fanyi.youdao.com";
+	private static final String[] QUERIES = {
+		"", "hello", "hello world", "a+b&c=d/e?f#g%h", "-_.*~!'()", "\u7ffb\u8bd1", "caf\u00e9",
+		"\ud83d\ude00 emoji", "unpaired \ud83d high", "unpaired \ude00 low", "reversed \ude00\ud83d", "trailing \ud83d",
+		"line\nbreak\ttab", "\u0000\u007f\u0080\u07ff\u0800\uffff"
+	};
+
+	@Test
+	public void testEncodeMatchesUrlEncoder() throws UnsupportedEncodingException {
+		for(String query : QUERIES){
+			assertEquals(query, URLEncoder.encode(query, "UTF-8"), PercentEncoder.encode(query));
+		}
+		Random random = new Random(7);
+		for(int i = 0; i < 10000; i++){
+			String query = createRandomText(random);
+			assertEquals(URLEncoder.encode(query, "UTF-8"), PercentEncoder.encode(query));
+		}
+	}
+
+	@Test
+	public void testEncodeKeepsUnreservedText() {
+		String text = "Hello-World_1.0*";
+		assertSame(text, PercentEncoder.encode(text));
+	}
+
+	@Test
+	public void testYoudaoUrlMatchesUriBuilder() throws URISyntaxException {
+		String[][] credentials = {{"IntellijTranslate", "1918103305"}, {"key from", "\u7ffb&="}, {null, "1918103305"},
+			{"IntellijTranslate", null}, {null, null}, {"", ""}};
+		Random random = new Random(11);
+		for(String[] credential : credentials){
+			for(String query : QUERIES){
+				assertEquals(createUriBuilderUrl(query, credential[0], credential[1]),
+					YoudaoTranslator.createTemplate(HOST, credential[0], credential[1]).expandUri(query));
+			}
+			for(int i = 0; i < 1000; i++){
+				String query = createRandomText(random);
+				assertEquals(createUriBuilderUrl(query, credential[0], credential[1]),
+					YoudaoTranslator.createTemplate(HOST, credential[0], credential[1]).expandUri(query));
+			}
+		}
+	}
+
+	@Test
+	public void testExternalUrl() throws UnsupportedEncodingException {
+		YoudaoTranslator translator = new YoudaoTranslator();
+		for(String query : QUERIES){
+			assertEquals("http://dict.youdao.com/w/" + URLEncoder.encode(query, "UTF-8") + "/#keyfrom=dict2.top",
+				translator.getExternalUrl(query));
+		}
+	}
+
+	@Test
+	public void testExpandAfterLongQuery() {
+		UrlTemplate template = new UrlTemplate("http://host/?q=", "&x=1");
+		StringBuilder longQuery = new StringBuilder();
+		for(int i = 0; i < 10000; i++){
+			longQuery.append('\u7ffb');
+		}
+		// three percent-encoded bytes each
+		assertEquals(10000 * 9 + "http://host/?q=&x=1".length(), template.expand(longQuery).length());
+		assertEquals("http://host/?q=a+b&x=1", template.expand("a b"));
+	}
+
+	private static URI createUriBuilderUrl(String query, String keyfrom, String apiKey) throws URISyntaxException {
+		return new URIBuilder()
+			.setScheme("http")
+			.setHost(HOST)
+			.setPath("/openapi.do")
+			.addParameter("keyfrom", keyfrom)
+			.addParameter("key", apiKey)
+			.addParameter("type", "data")
+			.addParameter("version", "1.1")
+			.addParameter("doctype", "json")
+			.addParameter("q", query)
+			.build();
+	}
+
+	/**
+	 * Mostly ASCII punctuation and letters with some BMP, supplementary and unpaired surrogate characters mixed in.
+	 */
+	private static String createRandomText(Random random) {
+		StringBuilder text = new StringBuilder();
+		for(int length = random.nextInt(12); length > 0; length--){
+			switch(random.nextInt(6)){
+				case 0:
+					text.append((char)(0x4e00 + random.nextInt(0x5000)));
+					break;
+				case 1:
+					text.appendCodePoint(0x10000 + random.nextInt(0x10000));
+					break;
+				case 2:
+					text.append((char)(0xd800 + random.nextInt(0x800)));
+					break;
+				case 3:
+					text.append((char)(0x80 + random.nextInt(0x780)));
+					break;
+				default:
+					text.append((char)random.nextInt(128));
+			}
+		}
+		return text.toString();
+	}
+}
@@ -0,0 +1,246 @@
+/*
+ * Copyright 2016 Yuyou Chow
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intellij.translation.cli;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonPrimitive;
+import com.intellij.translation.cache.TranslationCache;
+import com.intellij.translation.concurrent.TranslationThreads;
+import com.intellij.translation.diagnostic.LatencyHistogram;
+import com.intellij.translation.translator.TranslationResult;
+import com.intellij.translation.translator.Translator;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Translates a stream of queries, one per line, on a fixed number of threads and writes the results in input order.
+ * Progress and throughput go to a separate stream so the output stays machine readable.
+ */
+class BatchTranslator {
+	enum Format {
+		TEXT, JSON
+	}
+
+	/** queries in flight per thread, bounds memory on large inputs while keeping every thread busy */
+	private static final int WINDOW_PER_THREAD = 4;
+
+	private final List<Translator> myTranslators;
+	private final int myThreads;
+	private final boolean myCache;
+	private final Format myFormat;
+	private final Gson myGson = new Gson();
+
+	private final AtomicLong myProcessed = new AtomicLong();
+	private final AtomicLong myCacheHits = new AtomicLong();
+	private final AtomicLong myFailures = new AtomicLong();
+	private final LatencyHistogram myLatency = new LatencyHistogram();
+
+	BatchTranslator(@NotNull List<Translator> translators, int threads, boolean cache, @NotNull Format format) {
+		myTranslators = translators;
+		myThreads = threads;
+		myCache = cache;
+		myFormat = format;
+	}
+
+	void run(@NotNull BufferedReader input, @NotNull PrintStream output, @NotNull PrintStream progress, long reportIntervalMillis)
+		throws IOException, InterruptedException {
+		ExecutorService executor = Executors.newFixedThreadPool(myThreads, TranslationThreads.newThreadFactory("batch"));
+		ScheduledExecutorService reporter = Executors.newSingleThreadScheduledExecutor();
+		long start = System.nanoTime();
+		if(reportIntervalMillis > 0){
+			reporter.scheduleAtFixedRate(() -> report(progress, start), reportIntervalMillis, reportIntervalMillis, TimeUnit.MILLISECONDS);
+		}
+
+		try{
+			Queue<Pending> window = new ArrayDeque<>();
+			String line;
+			while((line = input.readLine()) != null){
+				final String query = line.trim();
+				if(query.isEmpty()) continue;
+
+				window.add(new Pending(query, executor.submit(() -> translate(query))));
+				if(window.size() >= myThreads * WINDOW_PER_THREAD){
+					output.println(take(window.remove()));
+				}
+			}
+			while(!window.isEmpty()){
+				output.println(take(window.remove()));
+			}
+			output.flush();
+		}finally {
+			reporter.shutdownNow();
+			executor.shutdownNow();
+		}
+		report(progress, start);
+	}
+
+	@NotNull
+	private String translate(@NotNull String query) {
+		if(myCache){
+			TranslationCache.Hit hit = TranslationCache.getInstance().get(query);
+			if(hit != null && !hit.isApproximate()){
+				myCacheHits.incrementAndGet();
+				myProcessed.incrementAndGet();
+				return format(query, hit.getTranslator(), hit.getResult());
+			}
+		}
+
+		long start = System.nanoTime();
+		TranslationResult failure = null;
+		Translator failed = null;
+		for(Translator translator : myTranslators){
+			TranslationResult result;
+			try{
+				result = translator.fetchResult(query);
+			}catch (RuntimeException e){
+				result = null;
+			}
+			if(result != null && result.getErrorCode() == TranslationResult.FAILURE){
+				// the request failed even after retries, the next translator may still answer
+				if(failure == null){
+					failure = result;
+					failed = translator;
+				}
+				continue;
+			}
+			if(result != null){
+				if(myCache && result.isSuccessful()){
+					TranslationCache.getInstance().put(query, translator, result);
+				}
+				finish(start, result.isSuccessful());
+				return format(query, translator, result);
+			}
+		}
+		finish(start, false);
+		return format(query, failed, failure);
+	}
+
+	private void finish(long start, boolean success) {
+		myLatency.recordNanos(System.nanoTime() - start);
+		if(!success){
+			myFailures.incrementAndGet();
+		}
+		myProcessed.incrementAndGet();
+	}
+
+	@NotNull
+	private String format(@NotNull String query, @Nullable Translator translator, @Nullable TranslationResult result) {
+		if(myFormat == Format.JSON){
+			JsonObject object = new JsonObject();
+			object.addProperty("query", query);
+			if(translator != null){
+				object.addProperty("translator", translator.getTitle());
+			}
+			if(result != null){
+				object.addProperty("errorCode", result.getErrorCode());
+				if(result.getErrorMessage() != null){
+					object.addProperty("errorMessage", result.getErrorMessage());
+				}
+				object.add("translations", toArray(result.getTranslations()));
+				if(result.getPhonetic() != null){
+					object.addProperty("phonetic", result.getPhonetic());
+				}
+				if(result.getUsPhonetic() != null){
+					object.addProperty("usPhonetic", result.getUsPhonetic());
+				}
+				if(result.getUkPhonetic() != null){
+					object.addProperty("ukPhonetic", result.getUkPhonetic());
+				}
+				object.add("explains", toArray(result.getExplains()));
+				JsonObject web = new JsonObject();
+				for(TranslationResult.WebEntry entry : result.getWebEntries()){
+					web.add(entry.getKey(), toArray(entry.getValues()));
+				}
+				object.add("web", web);
+				if(result.getHtml() != null){
+					object.addProperty("html", result.getHtml());
+				}
+			}
+			return myGson.toJson(object);
+		}
+
+		String translation = "";
+		if(result != null){
+			if(!result.isSuccessful()){
+				translation = "error " + result.getErrorCode() + (result.getErrorMessage() != null ? ": " + result.getErrorMessage() : "");
+			}else if(!result.getTranslations().isEmpty()){
+				translation = String.join("; ", result.getTranslations());
+			}else{
+				translation = String.join("; ", result.getExplains());
+			}
+		}
+		return query + '\t' + translation.replace('\n', ' ');
+	}
+
+	@NotNull
+	private static JsonArray toArray(@NotNull List<String> values) {
+		JsonArray array = new JsonArray();
+		for(String value : values){
+			array.add(new JsonPrimitive(value));
+		}
+		return array;
+	}
+
+	/**
+	 * A query that failed unexpectedly still gets its line, one bad query must not cost the rest of the batch.
+	 */
+	@NotNull
+	private String take(@NotNull Pending pending) throws InterruptedException {
+		try{
+			return pending.myFuture.get();
+		}catch (ExecutionException e){
+			myFailures.incrementAndGet();
+			myProcessed.incrementAndGet();
+			Throwable cause = e.getCause();
+			String message = cause.getMessage() != null ? cause.getMessage() : cause.getClass().getName();
+			return format(pending.myQuery, null, TranslationResult.failure(pending.myQuery, message));
+		}
+	}
+
+	private void report(@NotNull PrintStream progress, long start) {
+		double seconds = Math.max(System.nanoTime() - start, 1) / 1e9;
+		long processed = myProcessed.get();
+		progress.printf("%d queries in %.1f s (%.1f/s), %d cache hits, %d failures, latency p50 %.1f ms p90 %.1f ms p99 %.1f ms%n",
+			processed, seconds, processed / seconds, myCacheHits.get(), myFailures.get(),
+			myLatency.getPercentile(50) / 1000.0, myLatency.getPercentile(90) / 1000.0, myLatency.getPercentile(99) / 1000.0);
+	}
+
+	private static class Pending {
+		private final String myQuery;
+		private final Future<String> myFuture;
+
+		private Pending(@NotNull String query, @NotNull Future<String> future) {
+			myQuery = query;
+			myFuture = future;
+		}
+	}
+}
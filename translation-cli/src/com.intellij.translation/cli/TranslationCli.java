@@ -0,0 +1,184 @@
+/*
+ * Copyright 2016 Yuyou Chow
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intellij.translation.cli;
+
+import com.intellij.translation.cache.SharedTranslationCache;
+import com.intellij.translation.settings.TranslationSettings;
+import com.intellij.translation.translator.Translator;
+import com.intellij.translation.translator.YoudaoTranslator;
+import org.jetbrains.annotations.NonNls;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.io.Reader;
+import java.io.SequenceInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Headless batch translator: reads queries line by line from files or stdin and writes one translation per line,
+ * using the same translators as the plugin, without starting the IDE.
+ */
+public class TranslationCli {
+	@NonNls private static final String USAGE =
+		"Usage: translation-cli [options] [file...]\n" +
+		"Translates every non-empty line of the files, or of stdin if none are given.\n" +
+		"  --threads <n>             concurrent requests (default 4)\n" +
+		"  --translator <name>       only use the translator with this title or class name\n" +
+		"  --format text|json        tab separated query and translation, or one json object per line (default text)\n" +
+		"  --no-cache                translate repeated lines again\n" +
+		"  --shared-cache <file>     also read and fill the shared cache file used by the IDE\n" +
+		"  --report <seconds>        print throughput to stderr periodically (default 5, 0 for the summary only)\n" +
+		"  --youdao-keyfrom <name>   Youdao openapi keyfrom\n" +
+		"  --youdao-key <key>        Youdao openapi key\n" +
+		"  --youdao-host <host:port> Youdao openapi host, e.g. a local stand-in server\n";
+
+	private TranslationCli() {
+	}
+
+	public static void main(String[] args) throws Exception {
+		// queries are read as UTF-8, so answer in UTF-8 too whatever the platform encoding is
+		PrintStream out = new PrintStream(new FileOutputStream(FileDescriptor.out), false, "UTF-8");
+		int exitCode = run(args, out, System.err);
+		out.flush();
+		System.exit(exitCode);
+	}
+
+	static int run(@NotNull String[] args, @NotNull PrintStream out, @NotNull PrintStream err) throws Exception {
+		int threads = 4;
+		String translatorName = null;
+		BatchTranslator.Format format = BatchTranslator.Format.TEXT;
+		boolean cache = true;
+		long reportMillis = 5000;
+		String keyfrom = null;
+		String key = null;
+		List<File> files = new ArrayList<>();
+
+		try{
+			Iterator<String> iterator = Arrays.asList(args).iterator();
+			while(iterator.hasNext()){
+				String arg = iterator.next();
+				switch(arg){
+					case "--threads":
+						threads = Integer.parseInt(value(iterator, arg));
+						if(threads < 1) throw new IllegalArgumentException("--threads must be positive");
+						break;
+					case "--translator":
+						translatorName = value(iterator, arg);
+						break;
+					case "--format":
+						format = BatchTranslator.Format.valueOf(value(iterator, arg).toUpperCase(Locale.ENGLISH));
+						break;
+					case "--no-cache":
+						cache = false;
+						break;
+					case "--shared-cache":
+						System.setProperty(SharedTranslationCache.PATH_PROPERTY, value(iterator, arg));
+						break;
+					case "--report":
+						reportMillis = (long)(Double.parseDouble(value(iterator, arg)) * 1000);
+						break;
+					case "--youdao-keyfrom":
+						keyfrom = value(iterator, arg);
+						break;
+					case "--youdao-key":
+						key = value(iterator, arg);
+						break;
+					case "--youdao-host":
+						System.setProperty(YoudaoTranslator.HOST_PROPERTY, value(iterator, arg));
+						break;
+					case "-h":
+					case "--help":
+						out.print(USAGE);
+						return 0;
+					default:
+						if(arg.startsWith("--")) throw new IllegalArgumentException("Unknown option " + arg);
+						files.add(new File(arg));
+				}
+			}
+		}catch (IllegalArgumentException e){
+			err.println(e.getMessage());
+			err.print(USAGE);
+			return 2;
+		}
+
+		TranslationSettings settings = TranslationSettings.getInstance();
+		if(keyfrom != null || key != null){
+			settings.setYoudaoKeyfromAndApiKey(keyfrom != null ? keyfrom : settings.getYoudaoKeyfrom(), key != null ? key : settings.getYoudaoApiKey());
+			settings.publish();
+		}
+
+		List<Translator> translators = selectTranslators(TranslatorLoader.load(), translatorName);
+		if(translators.isEmpty()){
+			err.println("No translator matches " + translatorName);
+			return 2;
+		}
+
+		BatchTranslator translator = new BatchTranslator(translators, threads, cache, format);
+		try(BufferedReader reader = new BufferedReader(openInput(files))){
+			translator.run(reader, out, err, reportMillis);
+		}
+		return 0;
+	}
+
+	@NotNull
+	private static String value(@NotNull Iterator<String> iterator, @NotNull String option) {
+		if(!iterator.hasNext()) throw new IllegalArgumentException(option + " needs a value");
+		return iterator.next();
+	}
+
+	@NotNull
+	private static List<Translator> selectTranslators(@NotNull List<Translator> translators, String name) {
+		if(name == null){
+			return translators;
+		}
+		List<Translator> selected = new ArrayList<>();
+		for(Translator translator : translators){
+			if(name.equalsIgnoreCase(translator.getTitle()) || name.equals(translator.getClass().getName())
+				|| name.equals(translator.getClass().getSimpleName())){
+				selected.add(translator);
+			}
+		}
+		return selected;
+	}
+
+	@NotNull
+	private static Reader openInput(@NotNull List<File> files) throws IOException {
+		if(files.isEmpty()){
+			return new InputStreamReader(System.in, StandardCharsets.UTF_8);
+		}
+		SequenceInputStream stream = null;
+		for(File file : files){
+			// a missing line break at the end of one file must not glue its last line to the next file
+			SequenceInputStream withBreak = new SequenceInputStream(Files.newInputStream(file.toPath()),
+				new ByteArrayInputStream(new byte[]{'\n'}));
+			stream = stream == null ? withBreak : new SequenceInputStream(stream, withBreak);
+		}
+		return new InputStreamReader(stream, StandardCharsets.UTF_8);
+	}
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright 2016 Yuyou Chow
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intellij.translation.cli;
+
+import com.intellij.translation.translator.Translator;
+import org.jetbrains.annotations.NonNls;
+import org.jetbrains.annotations.NotNull;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+
+/**
+ * Finds the translators the plugin registers in <code>META-INF/translation.xml</code> and instantiates those able to
+ * fetch translations, in registration order like the IDE does for the extension point.
+ */
+class TranslatorLoader {
+	@NonNls private static final String DESCRIPTOR = "META-INF/translation.xml";
+	@NonNls private static final String NAMESPACE = "com.intellij.translation";
+	@NonNls private static final String TRANSLATOR_TAG = "translator";
+	@NonNls private static final String FETCH_CAPABILITY = "fetch";
+
+	private TranslatorLoader() {
+	}
+
+	@NotNull
+	static List<Translator> load() throws IOException {
+		List<Translator> translators = new ArrayList<>();
+		ClassLoader classLoader = TranslatorLoader.class.getClassLoader();
+		Enumeration<URL> descriptors = classLoader.getResources(DESCRIPTOR);
+		while(descriptors.hasMoreElements()){
+			URL descriptor = descriptors.nextElement();
+			for(String implementation : readImplementations(descriptor)){
+				translators.add(instantiate(classLoader, implementation));
+			}
+		}
+		if(translators.isEmpty()){
+			throw new IOException("No translators registered in " + DESCRIPTOR);
+		}
+		return translators;
+	}
+
+	@NotNull
+	private static List<String> readImplementations(@NotNull URL descriptor) throws IOException {
+		List<String> implementations = new ArrayList<>();
+		try(InputStream stream = descriptor.openStream()){
+			Element root = DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(stream).getDocumentElement();
+			NodeList extensions = root.getElementsByTagName("extensions");
+			for(int i = 0; i < extensions.getLength(); i++){
+				Element extension = (Element)extensions.item(i);
+				if(!NAMESPACE.equals(extension.getAttribute("defaultExtensionNs"))) continue;
+
+				NodeList translators = extension.getElementsByTagName(TRANSLATOR_TAG);
+				for(int j = 0; j < translators.getLength(); j++){
+					Element translator = (Element)translators.item(j);
+					String implementation = translator.getAttribute("implementation");
+					if(!implementation.isEmpty() && canFetch(translator)){
+						implementations.add(implementation);
+					}
+				}
+			}
+		}catch (IOException e){
+			throw e;
+		}catch (Exception e){
+			throw new IOException("Cannot read " + descriptor, e);
+		}
+		return implementations;
+	}
+
+	/**
+	 * Same rule as <code>TranslatorEP.hasCapability</code>, which needs the IDE.
+	 */
+	private static boolean canFetch(@NotNull Element translator) {
+		if(!translator.hasAttribute("capabilities")){
+			return true;
+		}
+		for(String capability : translator.getAttribute("capabilities").split(",")){
+			if(capability.trim().equals(FETCH_CAPABILITY)){
+				return true;
+			}
+		}
+		return false;
+	}
+
+	@NotNull
+	private static Translator instantiate(@NotNull ClassLoader classLoader, @NotNull String implementation) throws IOException {
+		try{
+			return (Translator)Class.forName(implementation, true, classLoader).newInstance();
+		}catch (ReflectiveOperationException | ClassCastException e){
+			throw new IOException("Cannot instantiate translator " + implementation, e);
+		}
+	}
+}